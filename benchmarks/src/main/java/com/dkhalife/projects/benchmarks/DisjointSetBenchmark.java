@@ -0,0 +1,86 @@
+package com.dkhalife.projects.benchmarks;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dkhalife.projects.ConcurrentDisjointSet;
+import com.dkhalife.projects.DisjointSet;
+
+/**
+ * Measures a fresh Disjoint Set going through one union per element over
+ * random pairs, followed by a find on every element, for both the serial and
+ * the lock-free implementations.
+ *
+ * @author Dany Khalife
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DisjointSetBenchmark {
+	@Param({ "65536", "1048576" })
+	public int size;
+
+	@Param({ "serial", "concurrent" })
+	public String impl;
+
+	private int[] pairs;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(Fixtures.SEED);
+		pairs = new int[2 * size];
+		for (int i = 0; i < pairs.length; ++i) {
+			pairs[i] = random.nextInt(size);
+		}
+	}
+
+	@Benchmark
+	public long unionFind() {
+		long roots = 0;
+
+		if (impl.equals("concurrent")) {
+			ConcurrentDisjointSet ds = new ConcurrentDisjointSet(size);
+			for (int i = 0; i < pairs.length; i += 2) {
+				ds.union(pairs[i], pairs[i + 1]);
+			}
+			for (int i = 0; i < size; ++i) {
+				roots += ds.find(i);
+			}
+		}
+		else {
+			DisjointSet ds = new DisjointSet(size);
+			for (int i = 0; i < pairs.length; i += 2) {
+				ds.union(pairs[i], pairs[i + 1]);
+			}
+			for (int i = 0; i < size; ++i) {
+				roots += ds.find(i);
+			}
+		}
+
+		return roots;
+	}
+}
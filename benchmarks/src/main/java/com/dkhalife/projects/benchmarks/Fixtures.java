@@ -0,0 +1,71 @@
+package com.dkhalife.projects.benchmarks;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Random;
+
+import com.dkhalife.projects.Maze;
+
+/**
+ * This class builds the mazes the benchmarks run on, so that every benchmark
+ * sees the same kinds of mazes for the same parameters.
+ *
+ * @author Dany Khalife
+ *
+ */
+final class Fixtures {
+	// The seed of every random draw, so that runs can be compared
+	static final long SEED = 42;
+
+	// The share of walls drawn in a sparse custom maze
+	private static final double SPARSE = 0.02;
+
+	private Fixtures() {
+	}
+
+	/**
+	 *
+	 * Builds a square maze
+	 *
+	 * @param size The width and height of the maze
+	 * @param walls Either "generated" for a perfect maze, or "sparse" for a
+	 *            mostly open grid with a few random walls, like the ones drawn
+	 *            by hand
+	 * @return The maze, with its graph built
+	 *
+	 */
+	static Maze maze(int size, String walls) {
+		Maze maze = new Maze(size, size);
+		maze.setSeed(SEED);
+
+		if (walls.equals("generated")) {
+			maze.generate();
+		}
+		else if (walls.equals("sparse")) {
+			Random random = new Random(SEED);
+			int rooms = size * size;
+			for (int k = 0; k < rooms * SPARSE; ++k) {
+				int r = random.nextInt(rooms);
+				if (random.nextBoolean()) {
+					maze.maze.add(r, r - size);
+				}
+				else {
+					maze.maze.add(r, r - 1);
+				}
+			}
+			maze.setCustom(true);
+		}
+		else {
+			throw new IllegalArgumentException("Unknown walls " + walls);
+		}
+
+		maze.getGraph();
+		return maze;
+	}
+}
@@ -0,0 +1,128 @@
+package com.dkhalife.projects.benchmarks;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dkhalife.projects.Maze;
+import com.dkhalife.projects.MazeEngine;
+import com.dkhalife.projects.Solver;
+
+/**
+ * Measures the heap a maze keeps once it is built (walls and graph), and the
+ * peak heap while it is solved: the peak usage of every heap pool is reset
+ * just before the solve and read right after it. A pool records its peak at
+ * each collection and when it is read, and nothing is freed in between, so
+ * the work arrays count even if a young collection freed them mid solve.
+ * Both are reported as secondary results next to the build time, relative to
+ * the heap in use before the maze was built.
+ *
+ * JMH adds the counters of every measured iteration up, so there is a single
+ * one (the footprints don't vary, the mazes are built from a fixed seed).
+ *
+ * @author Dany Khalife
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+// The serial collector reports the exact heap in use after a full collection, as long as it doesn't
+// leave dead objects in place to save moving the live ones (which hid mazes below a few MB), and
+// eden grows with each allocation instead of a whole thread buffer at a time (which hid the solve)
+@Fork(value = 1, jvmArgsAppend = { "-XX:+UseSerialGC", "-XX:MarkSweepDeadRatio=0", "-XX:-UseTLAB" })
+public class FootprintBenchmark {
+	@Param({ "100", "500", "1000" })
+	public int size;
+
+	@Param({ "generated", "sparse" })
+	public String walls;
+
+	@Param({ "dfs", "bfs", "bidi", "astar", "jps" })
+	public String solver;
+
+	/**
+	 * The measured footprints, in bytes
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public long mazeBytes;
+		public long peakBytes;
+	}
+
+	@Benchmark
+	public void build(Footprint footprint) {
+		List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+
+		long before = used(pools);
+		Maze maze = Fixtures.maze(size, walls);
+		long built = used(pools);
+
+		Solver s = MazeEngine.factory(solver).create();
+		for (MemoryPoolMXBean pool : pools) {
+			pool.resetPeakUsage();
+		}
+		int[] path = s.solve(maze.getGraph(), 0, size * size - 1);
+		long peak = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+
+		footprint.mazeBytes = built - before;
+		footprint.peakBytes = peak - before;
+
+		// Keep everything reachable until here, but not any longer: the next
+		// invocation must start from a heap without it
+		Reference.reachabilityFence(maze);
+		Reference.reachabilityFence(s);
+		Reference.reachabilityFence(path);
+	}
+
+	/**
+	 *
+	 * Measures the heap in use after a full collection
+	 *
+	 * @param pools The memory pools
+	 * @return The used heap, in bytes
+	 *
+	 */
+	private static long used(List<MemoryPoolMXBean> pools) {
+		System.gc();
+		System.gc();
+
+		long used = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			if (pool.getType() == MemoryType.HEAP) {
+				used += pool.getUsage().getUsed();
+			}
+		}
+		return used;
+	}
+}
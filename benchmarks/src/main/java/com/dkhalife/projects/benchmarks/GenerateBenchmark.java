@@ -0,0 +1,61 @@
+package com.dkhalife.projects.benchmarks;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dkhalife.projects.Maze;
+
+/**
+ * Measures how long it takes to generate a perfect maze, with the serial
+ * Kruskal generator and with the parallel one.
+ *
+ * @author Dany Khalife
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerateBenchmark {
+	@Param({ "100", "500", "1000" })
+	public int size;
+
+	@Param({ "serial", "parallel" })
+	public String mode;
+
+	@Benchmark
+	public Maze generate() {
+		Maze maze = new Maze(size, size);
+		maze.setSeed(Fixtures.SEED);
+
+		if (mode.equals("parallel")) {
+			maze.generate(ForkJoinPool.commonPool());
+		}
+		else {
+			maze.generate();
+		}
+
+		return maze;
+	}
+}
@@ -0,0 +1,80 @@
+package com.dkhalife.projects.benchmarks;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dkhalife.projects.Graph;
+import com.dkhalife.projects.MazeEngine;
+import com.dkhalife.projects.Solver;
+
+/**
+ * Measures point to point queries for every solver, on perfect mazes and on
+ * sparse custom grids. Each invocation solves the next query out of a fixed
+ * list of random pairs.
+ *
+ * @author Dany Khalife
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+	// How many different queries are cycled through
+	private static final int QUERIES = 1024;
+
+	@Param({ "100", "500", "1000" })
+	public int size;
+
+	@Param({ "generated", "sparse" })
+	public String walls;
+
+	@Param({ "dfs", "bfs", "bidi", "astar", "jps" })
+	public String solver;
+
+	private Graph graph;
+	private Solver instance;
+	private int[] starts = new int[QUERIES];
+	private int[] ends = new int[QUERIES];
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		graph = Fixtures.maze(size, walls).getGraph();
+		instance = MazeEngine.factory(solver).create();
+
+		Random random = new Random(Fixtures.SEED);
+		for (int q = 0; q < QUERIES; ++q) {
+			starts[q] = random.nextInt(graph.size());
+			ends[q] = random.nextInt(graph.size());
+		}
+	}
+
+	@Benchmark
+	public int[] solve() {
+		int q = next++ & (QUERIES - 1);
+		return instance.solve(graph, starts[q], ends[q]);
+	}
+}
@@ -0,0 +1,176 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This solver performs an A* search. Rooms are expanded in order of the
+ * distance walked so far plus an estimate of the distance left, so on open
+ * grids the search heads straight for the last room instead of growing a disk
+ * around the first one. With an admissible heuristic (such as the Manhattan
+ * distance) this produces a minimal path.
+ *
+ * The open set is a binary heap laid out in two primitive arrays, and like
+ * the BFS solver, the work arrays are kept from one solve to the next and
+ * reset by bumping an epoch.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class AStarSolver implements Solver {
+
+	/**
+	 * A heuristic estimates the distance between two rooms of a grid
+	 */
+	public interface Heuristic {
+
+		/**
+		 *
+		 * Estimates the number of steps from a room to another
+		 *
+		 * @param room The room we are in
+		 * @param end The room we want to reach
+		 * @param width The width of the grid
+		 * @return A lower bound of the distance for the path to stay minimal
+		 *
+		 */
+		int estimate(int room, int end, int width);
+	}
+
+	/**
+	 * The Manhattan distance between the grid coordinates of both rooms
+	 */
+	public static final Heuristic MANHATTAN = new Heuristic() {
+		public int estimate(int room, int end, int width) {
+			return Math.abs(room % width - end % width) + Math.abs(room / width - end / width);
+		}
+	};
+
+	// The estimate of the distance left
+	private Heuristic heuristic;
+
+	// The distance walked to reach each room, and the room it was reached from
+	private int[] distance;
+	private int[] previous;
+
+	// A room was reached during this search if its stamp is at least the
+	// epoch, and it was expanded if its stamp is one more than the epoch
+	private int[] stamps;
+	private int epoch = 0;
+
+	// The open set
+	private MinHeap open = new MinHeap();
+
+	// How many rooms were expanded by the last search
+	private int expanded = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	/**
+	 * The default A* solver uses the Manhattan distance
+	 */
+	public AStarSolver() {
+		this(MANHATTAN);
+	}
+
+	/**
+	 *
+	 * An A* solver is created with the heuristic to use
+	 *
+	 * @param h The heuristic
+	 *
+	 */
+	public AStarSolver(Heuristic h) {
+		heuristic = h;
+	}
+
+	public int[] solve(Grid graph, int start, int end) {
+		int n = graph.size();
+		int width = graph.getWidth();
+		expanded = 0;
+		frontier = 0;
+
+		// Only allocate when the maze changed size
+		if (stamps == null || stamps.length != n) {
+			distance = new int[n];
+			previous = new int[n];
+			stamps = new int[n];
+			epoch = 0;
+		}
+
+		// Every search uses two stamps, the array only needs clearing when the epoch wraps around
+		epoch += 2;
+		if (epoch <= 0) {
+			Arrays.fill(stamps, 0);
+			epoch = 2;
+		}
+
+		open.clear();
+		distance[start] = 0;
+		previous[start] = -1;
+		stamps[start] = epoch;
+		open.push(start, heuristic.estimate(start, end, width), heuristic.estimate(start, end, width));
+
+		while (!open.isEmpty()) {
+			int f = open.peekLength();
+			int h = open.peekLeft();
+			frontier = Math.max(frontier, open.size());
+			int room = open.pop();
+
+			// Skip the entries left behind when a shorter way to a room was found
+			if (stamps[room] != epoch || f != distance[room] + h) {
+				continue;
+			}
+
+			stamps[room] = epoch + 1;
+			++expanded;
+
+			if (room == end) {
+				return BFSSolver.retrace(previous, end);
+			}
+
+			int paths = graph.getPaths(room);
+			for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+				if ((paths & dir) == 0) {
+					continue;
+				}
+				int p = graph.neighbor(room, dir);
+				int d = distance[room] + 1;
+
+				// Skip the rooms that are expanded already or that we know a shorter way to
+				if (stamps[p] == epoch + 1 || (stamps[p] == epoch && distance[p] <= d)) {
+					continue;
+				}
+
+				stamps[p] = epoch;
+				distance[p] = d;
+				previous[p] = room;
+
+				h = heuristic.estimate(p, end, width);
+				open.push(p, d + h, h);
+			}
+		}
+
+		return null;
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "A*";
+	}
+}
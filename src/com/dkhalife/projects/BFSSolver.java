@@ -0,0 +1,223 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This solver performs a BFS (or Breadth-First-Search). This produces a
+ * minimal path.
+ *
+ * The queue, the back-links and the visited stamps are allocated once per
+ * graph size. A room is visited during a search if its stamp equals the
+ * current epoch, so bumping the epoch forgets about the previous search
+ * without clearing anything, and solving again only costs the result path.
+ *
+ * It can also search from several rooms to several others at once (see
+ * solve(Grid, int[], int[])), for the cost of a single search.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class BFSSolver implements Solver {
+	// The work arrays, kept from one solve to the next
+	private int[] queue;
+	private int[] previous;
+	private int[] stamps;
+	private int epoch = 0;
+
+	// The last rooms of a search from several rooms, marked with its epoch
+	private int[] goals;
+
+	// How many rooms were expanded by the last search
+	private int expanded = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	public int[] solve(Grid graph, int start, int end) {
+		begin(graph);
+
+		// Push our first room on the queue and mark it as visited
+		queue[0] = start;
+		previous[start] = -1;
+		stamps[start] = epoch;
+
+		// The first room might already be the last one
+		if (start == end) {
+			return retrace(previous, end);
+		}
+
+		int reached = search(graph, 1, end);
+		return reached == -1 ? null : retrace(previous, reached);
+	}
+
+	/**
+	 *
+	 * Finds the shortest path from any of several rooms to any of several
+	 * others, in a single search: every first room is pushed on the queue
+	 * before the search starts, so the rooms are reached in order of their
+	 * distance to the closest first room, and the search stops at the first
+	 * last room it reaches.
+	 *
+	 * @param graph The grid to search
+	 * @param starts The first rooms
+	 * @param ends The last rooms
+	 * @return The rooms on the path, from the first room it starts from to
+	 *         the last room it reaches, or null if none can be reached
+	 *
+	 */
+	public int[] solve(Grid graph, int[] starts, int[] ends) {
+		begin(graph);
+
+		// The last rooms are marked the way the visited rooms are
+		if (goals == null || goals.length != stamps.length) {
+			goals = new int[stamps.length];
+		}
+		else if (epoch == 1) {
+			// The stamps were cleared, old marks would match the new epoch
+			Arrays.fill(goals, 0);
+		}
+		for (int end : ends) {
+			goals[end] = epoch;
+		}
+
+		// Push every first room on the queue, it ends the search if it is also a last room
+		int tail = 0;
+		for (int start : starts) {
+			if (stamps[start] == epoch) {
+				continue;
+			}
+			queue[tail++] = start;
+			previous[start] = -1;
+			stamps[start] = epoch;
+
+			if (goals[start] == epoch) {
+				return retrace(previous, start);
+			}
+		}
+
+		int reached = search(graph, tail, -1);
+		return reached == -1 ? null : retrace(previous, reached);
+	}
+
+	/**
+	 *
+	 * Gets the work arrays ready for a new search
+	 *
+	 * @param graph The grid to search
+	 *
+	 */
+	private void begin(Grid graph) {
+		int n = graph.size();
+		expanded = 0;
+		frontier = 0;
+
+		// Only allocate when the maze changed size
+		if (stamps == null || stamps.length != n) {
+			// The queue is circular, its capacity is a power of two so that wrapping around is a simple mask
+			queue = new int[Integer.highestOneBit(Math.max(n - 1, 1)) << 1];
+			previous = new int[n];
+			stamps = new int[n];
+			epoch = 0;
+		}
+
+		// Start a new search, the stamps only need clearing when the epoch wraps around
+		if (++epoch == 0) {
+			Arrays.fill(stamps, 0);
+			epoch = 1;
+		}
+	}
+
+	/**
+	 *
+	 * Expands the rooms on the queue until a last room is reached
+	 *
+	 * @param graph The grid to search
+	 * @param tail How many rooms were pushed on the queue (from its start)
+	 * @param end The last room, or -1 to stop at any room marked in goals
+	 * @return The last room reached, or -1 if there is none
+	 *
+	 */
+	private int search(Grid graph, int tail, int end) {
+		int mask = queue.length - 1;
+		int head = 0;
+
+		// As long as we still haven't visited all the possible paths
+		while (head != tail) {
+			// Lets take our next room
+			frontier = Math.max(frontier, tail - head);
+			int room = queue[head++ & mask];
+			++expanded;
+
+			// Now we need to know where we can go from this room that we haven't been to before
+			int paths = graph.getPaths(room);
+			for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+				if ((paths & dir) == 0) {
+					continue;
+				}
+				int p = graph.neighbor(room, dir);
+
+				if (stamps[p] == epoch) {
+					continue;
+				}
+
+				// Mark it as visited now, this way it is guaranteed that we
+				// can't add an element multiple times to the queue
+				stamps[p] = epoch;
+
+				// Enque children
+				previous[p] = room;
+				queue[tail++ & mask] = p;
+
+				// If we reached the last room, we'll need to stop
+				if (p == end || (end == -1 && goals[p] == epoch)) {
+					return p;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "BFS";
+	}
+
+	/**
+	 *
+	 * Follows back-links from a room up to the room that has no predecessor
+	 *
+	 * @param previous The room each room was reached from (-1 for the start)
+	 * @param end The room to retrace from
+	 * @return The rooms on the path, from the start to end
+	 *
+	 */
+	static int[] retrace(int[] previous, int end) {
+		int length = 0;
+		for (int room = end; room != -1; room = previous[room]) {
+			++length;
+		}
+
+		int[] path = new int[length];
+		for (int room = end, i = length - 1; room != -1; room = previous[room], --i) {
+			path[i] = room;
+		}
+
+		return path;
+	}
+}
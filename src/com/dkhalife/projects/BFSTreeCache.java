@@ -0,0 +1,263 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This solver answers many queries from the same first rooms. The first time
+ * a room is used as a start, a BFS walks the whole maze from it and keeps the
+ * room each room was reached from (a BFS tree). Every query from that room
+ * after that is only a walk back from the last room, as long as the walls
+ * didn't change.
+ *
+ * The trees are kept in a cache bounded by their total size, and the least
+ * recently used one is dropped when a new one doesn't fit. A tree is valid for
+ * one graph and one version of the walls (see setVersion): when the maze is
+ * edited, the trees built before are rebuilt the next time they are used.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class BFSTreeCache implements VersionedSolver {
+	// The back-link of the rooms the BFS didn't reach
+	private static final int UNREACHED = -2;
+
+	/**
+	 * A BFS tree, and what it was built for
+	 */
+	private static class Tree {
+		// The graph and the version of the walls
+		Grid graph;
+		long version;
+
+		// The room each room was reached from (-1 for the source)
+		int[] previous;
+	}
+
+	// The trees, by source room, from the least to the most recently used
+	private LinkedHashMap<Integer, Tree> trees = new LinkedHashMap<Integer, Tree>(16, 0.75f, true);
+
+	// How much memory the trees can take, and how much they take
+	private long maxBytes;
+	private long bytes = 0;
+
+	// The version of the walls of the next queries
+	private long version = 0;
+
+	// The queue of the BFS
+	private int[] queue;
+
+	// The metrics
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	// How many rooms were expanded by the last query
+	private int expanded = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	/**
+	 * A cache is created with room for 64MB of trees
+	 */
+	public BFSTreeCache() {
+		this(64L << 20);
+	}
+
+	/**
+	 *
+	 * A cache is created with a bound on its memory
+	 *
+	 * @param max How much memory the trees can take (in bytes)
+	 *
+	 */
+	public BFSTreeCache(long max) {
+		maxBytes = max;
+	}
+
+	public int[] solve(Grid graph, int start, int end) {
+		expanded = 0;
+		frontier = 0;
+
+		Tree tree = trees.get(start);
+		if (tree != null && tree.graph == graph && tree.version == version) {
+			++hits;
+		}
+		else {
+			++misses;
+			tree = build(graph, start, tree);
+		}
+
+		if (tree.previous[end] == UNREACHED) {
+			return null;
+		}
+		return BFSSolver.retrace(tree.previous, end);
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "Cached BFS";
+	}
+
+	/**
+	 *
+	 * Setter for the version of the walls. Trees built for another version
+	 * are rebuilt the next time they are used.
+	 *
+	 * @param v The version the next queries are about
+	 *
+	 */
+	public void setVersion(long v) {
+		version = v;
+	}
+
+	/**
+	 * Drops all the trees
+	 */
+	public void clear() {
+		trees.clear();
+		bytes = 0;
+	}
+
+	/**
+	 *
+	 * Getter for the hits
+	 *
+	 * @return How many queries were answered from a cached tree
+	 *
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 *
+	 * Getter for the misses
+	 *
+	 * @return How many queries had to build a tree
+	 *
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 *
+	 * Getter for the evictions
+	 *
+	 * @return How many trees were dropped to make room for others
+	 *
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 *
+	 * Getter for the memory used
+	 *
+	 * @return How many bytes the cached trees take
+	 *
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 *
+	 * Builds the BFS tree of a room and caches it if it fits
+	 *
+	 * @param graph The connexity of the rooms
+	 * @param source The room to start from
+	 * @param stale The outdated tree of that room, if there is one
+	 * @return The tree
+	 *
+	 */
+	private Tree build(Grid graph, int source, Tree stale) {
+		int n = graph.size();
+		long size = 4L * n;
+
+		// An outdated tree of the same size is rebuilt in place
+		Tree tree = stale;
+		if (tree == null || tree.previous.length != n) {
+			if (tree != null) {
+				trees.remove(source);
+				bytes -= 4L * tree.previous.length;
+			}
+
+			// Make room, reusing the array of a dropped tree when it has the right size
+			int[] previous = null;
+			Iterator<Map.Entry<Integer, Tree>> it = trees.entrySet().iterator();
+			while (size <= maxBytes && bytes + size > maxBytes && it.hasNext()) {
+				Tree eldest = it.next().getValue();
+				it.remove();
+				++evictions;
+				bytes -= 4L * eldest.previous.length;
+				if (eldest.previous.length == n) {
+					previous = eldest.previous;
+				}
+			}
+
+			tree = new Tree();
+			tree.previous = previous != null ? previous : new int[n];
+			if (bytes + size <= maxBytes) {
+				trees.put(source, tree);
+				bytes += size;
+			}
+		}
+		// Not valid until the BFS is over, in case it is cancelled halfway
+		tree.graph = null;
+
+		if (queue == null || queue.length != n) {
+			queue = new int[n];
+		}
+
+		int[] previous = tree.previous;
+		Arrays.fill(previous, UNREACHED);
+
+		// A BFS through every room the source can reach
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		previous[source] = -1;
+		while (head != tail) {
+			frontier = Math.max(frontier, tail - head);
+			int room = queue[head++];
+			++expanded;
+
+			int paths = graph.getPaths(room);
+			for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+				if ((paths & dir) == 0) {
+					continue;
+				}
+				int p = graph.neighbor(room, dir);
+				if (previous[p] == UNREACHED) {
+					previous[p] = room;
+					queue[tail++] = p;
+				}
+			}
+		}
+		tree.graph = graph;
+		tree.version = version;
+
+		return tree;
+	}
+}
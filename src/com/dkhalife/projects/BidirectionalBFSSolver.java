@@ -0,0 +1,178 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This solver grows two BFS frontiers, one from the first room and one from
+ * the last room, always advancing the smaller one by a whole level. When they
+ * touch, the level is finished to pick the shortest way across and both chains
+ * of back-links are spliced together. This produces a minimal path while
+ * exploring two disks of half the radius instead of one full disk.
+ *
+ * Like the BFS solver, the work arrays are allocated once per graph size and
+ * reset by bumping an epoch.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class BidirectionalBFSSolver implements Solver {
+	// One queue per side, every room is enqueued at most once by either side
+	private int[] forward;
+	private int[] backward;
+
+	// The room each room was reached from (towards its own side's source) and
+	// the distance to that source
+	private int[] previous;
+	private int[] distance;
+
+	// A room was reached from the first room if its stamp equals the epoch, and
+	// from the last room if its stamp equals the epoch plus one
+	private int[] stamps;
+	private int epoch = 0;
+
+	// How many rooms were expanded by the last search
+	private int expanded = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	public int[] solve(Grid graph, int start, int end) {
+		int n = graph.size();
+		expanded = 0;
+		frontier = 0;
+
+		// Only allocate when the maze changed size
+		if (stamps == null || stamps.length != n) {
+			forward = new int[n];
+			backward = new int[n];
+			previous = new int[n];
+			distance = new int[n];
+			stamps = new int[n];
+			epoch = 0;
+		}
+
+		// Every search uses two stamps, the array only needs clearing when the epoch wraps around
+		epoch += 2;
+		if (epoch <= 0) {
+			Arrays.fill(stamps, 0);
+			epoch = 2;
+		}
+
+		if (start == end) {
+			return new int[] { start };
+		}
+
+		int fHead = 0;
+		int fTail = 0;
+		int bHead = 0;
+		int bTail = 0;
+
+		forward[fTail++] = start;
+		previous[start] = -1;
+		distance[start] = 0;
+		stamps[start] = epoch;
+
+		backward[bTail++] = end;
+		previous[end] = -1;
+		distance[end] = 0;
+		stamps[end] = epoch + 1;
+
+		// The shortest way across found so far: the edge (near, far) where
+		// near was reached from the first room and far from the last room
+		int best = Integer.MAX_VALUE;
+		int near = -1;
+		int far = -1;
+
+		while (fHead < fTail && bHead < bTail && best == Integer.MAX_VALUE) {
+			frontier = Math.max(frontier, fTail - fHead + bTail - bHead);
+
+			// Advance the side with the smaller frontier by one whole level
+			boolean fromStart = fTail - fHead <= bTail - bHead;
+			int[] queue = fromStart ? forward : backward;
+			int mine = fromStart ? epoch : epoch + 1;
+			int other = fromStart ? epoch + 1 : epoch;
+			int head = fromStart ? fHead : bHead;
+			int tail = fromStart ? fTail : bTail;
+			int level = tail;
+
+			while (head < level) {
+				int room = queue[head++];
+				++expanded;
+
+				int paths = graph.getPaths(room);
+				for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+					if ((paths & dir) == 0) {
+						continue;
+					}
+					int p = graph.neighbor(room, dir);
+
+					if (stamps[p] == mine) {
+						continue;
+					}
+
+					// Both frontiers meet here, keep the shortest crossing of this level
+					if (stamps[p] == other) {
+						int length = distance[room] + 1 + distance[p];
+						if (length < best) {
+							best = length;
+							near = fromStart ? room : p;
+							far = fromStart ? p : room;
+						}
+						continue;
+					}
+
+					stamps[p] = mine;
+					previous[p] = room;
+					distance[p] = distance[room] + 1;
+					queue[tail++] = p;
+				}
+			}
+
+			if (fromStart) {
+				fHead = head;
+				fTail = tail;
+			}
+			else {
+				bHead = head;
+				bTail = tail;
+			}
+		}
+
+		if (best == Integer.MAX_VALUE) {
+			return null;
+		}
+
+		// Splice the chain from the first room to near with the chain from far to the last room
+		int[] path = new int[best + 1];
+		int i = distance[near];
+		for (int room = near; room != -1; room = previous[room]) {
+			path[i--] = room;
+		}
+		i = distance[near] + 1;
+		for (int room = far; room != -1; room = previous[room]) {
+			path[i++] = room;
+		}
+
+		return path;
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "Bidirectional BFS";
+	}
+}
@@ -0,0 +1,101 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class implements a Disjoint Set that can be shared by several threads
+ * without locking. Each element points to its parent (a root points to
+ * itself), roots are linked with a compare-and-set, and finds use path
+ * halving, which only ever swings a pointer from a node to its grandparent
+ * and is therefore safe to race with other finds and unions.
+ *
+ * Roots are linked by index (the smaller root goes under the larger one)
+ * instead of by depth, since depths can't be kept consistent without locks.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class ConcurrentDisjointSet {
+
+	/**
+	 *
+	 * A Disjoint Set is created by specifying the universe size
+	 *
+	 * @param size The universe size (How many elements are there in total)
+	 *
+	 */
+	public ConcurrentDisjointSet(int size) {
+		parent = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; ++i) {
+			parent.set(i, i);
+		}
+	}
+
+	/**
+	 *
+	 * A union will join both elements' respective sets
+	 *
+	 * @param el1 The first element
+	 * @param el2 The second element
+	 * @return True if both elements were in different sets (exactly one of
+	 *         the threads racing to join the same two sets gets true)
+	 *
+	 */
+	public boolean union(int el1, int el2) {
+		while (true) {
+			int root1 = find(el1);
+			int root2 = find(el2);
+			if (root1 == root2) {
+				return false;
+			}
+
+			// Always link the smaller root under the larger one so that two
+			// threads can't link both roots under each other
+			if (root1 > root2) {
+				int tmp = root1;
+				root1 = root2;
+				root2 = tmp;
+			}
+
+			// This only fails if another thread linked root1 meanwhile, in which case we try again
+			if (parent.compareAndSet(root1, root1, root2)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * This method is used to search an element's set (defined by its root)
+	 *
+	 * @param x The element to look for
+	 * @return int The root element for the element's set
+	 *
+	 */
+	public int find(int x) {
+		while (true) {
+			int p = parent.get(x);
+			if (p == x) {
+				return x;
+			}
+
+			int gp = parent.get(p);
+			if (p != gp) {
+				// Path halving: skip over the parent
+				parent.compareAndSet(x, p, gp);
+			}
+			x = gp;
+		}
+	}
+
+	private AtomicIntegerArray parent;
+
+}
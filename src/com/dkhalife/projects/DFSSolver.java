@@ -0,0 +1,125 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This solver performs a DFS (or Depth-First-Search). This does not produce a
+ * minimal path.
+ *
+ * The search is iterative so that long corridors can't overflow the call
+ * stack: rooms waiting to be explored are kept on an int stack, and each room
+ * remembers the direction it was reached from so that the path can be
+ * retraced once the last room is found. The visited flags are a bitset owned
+ * by the solver.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class DFSSolver implements Solver {
+	// The visited flag of each room (one bit per room)
+	private long[] visited;
+
+	// How many rooms were expanded by the last search
+	private int expanded = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	public int[] solve(Grid graph, int start, int end) {
+		expanded = 0;
+		frontier = 0;
+
+		// Only allocate when the maze changed size, otherwise just forget about the previous search
+		int words = (graph.size() + 63) >>> 6;
+		if (visited == null || visited.length != words) {
+			visited = new long[words];
+		}
+		else {
+			Arrays.fill(visited, 0L);
+		}
+
+		// Every room is pushed at most once since we mark it when we push it
+		int[] stack = new int[graph.size()];
+		int top = 0;
+
+		// The direction leading back to the room we came from (0 for the first room)
+		byte[] back = new byte[graph.size()];
+
+		// Start with the first room
+		stack[top++] = start;
+		visited[start >>> 6] |= 1L << start;
+
+		boolean pathFound = false;
+
+		// As long as there are rooms to explore, keep going deeper from the last one we found
+		while (top > 0) {
+			frontier = Math.max(frontier, top);
+			int room = stack[--top];
+			++expanded;
+
+			// If we are at the last room, we don't need to go further
+			if (room == end) {
+				pathFound = true;
+				break;
+			}
+
+			// Push every adjacent room we haven't been to before
+			int paths = graph.getPaths(room);
+			for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+				if ((paths & dir) == 0) {
+					continue;
+				}
+				int p = graph.neighbor(room, dir);
+
+				if ((visited[p >>> 6] & (1L << p)) != 0) { // we exclude any path going to a visited room (which also means, a path going backwards)
+					continue;
+				}
+
+				visited[p >>> 6] |= 1L << p;
+				back[p] = (byte) Graph.opposite(dir);
+				stack[top++] = p;
+			}
+		}
+
+		if (!pathFound) {
+			return null;
+		}
+
+		// Count the rooms on the way back, then retrace them from the last room
+		int length = 1;
+		for (int room = end; room != start; room = graph.neighbor(room, back[room])) {
+			++length;
+		}
+
+		int[] path = new int[length];
+		int room = end;
+		for (int i = length - 1; i >= 0; --i) {
+			path[i] = room;
+			if (i > 0) {
+				room = graph.neighbor(room, back[room]);
+			}
+		}
+
+		return path;
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "DFS";
+	}
+}
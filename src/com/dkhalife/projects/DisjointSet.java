@@ -59,13 +59,20 @@ public class DisjointSet {
 	 * 
 	 */
 	public int find(int x) {
-		if (s[x] < 0) {
-			return x;
+		// Walk up to the root first
+		int root = x;
+		while (s[root] >= 0) {
+			root = s[root];
 		}
-		else {
-			s[x] = find(s[x]);
-			return s[x];
+
+		// Then compress the path, without recursing (long chains would overflow the stack)
+		while (s[x] >= 0 && s[x] != root) {
+			int next = s[x];
+			s[x] = root;
+			x = next;
 		}
+
+		return root;
 	}
 
 	private int[] s;
@@ -0,0 +1,258 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class generates a perfect maze one row at a time using Eller's
+ * algorithm, so the maze never has to fit in memory: only the sets of the
+ * current row are kept, and each row is handed to a sink as soon as it is
+ * finished. Memory use depends on the width only.
+ *
+ * Rows are handed out in the same layout as the WallSet: two bits per room,
+ * the top wall at bit 2 * j and the left wall at bit 2 * j + 1.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class EllerGenerator {
+
+	/**
+	 * A sink receives the rows of a maze as they are generated
+	 */
+	public interface RowSink {
+
+		/**
+		 *
+		 * Receives a finished row. The array is reused for the next row, so
+		 * it must be consumed (or copied) before returning.
+		 *
+		 * @param index The row index, from the top
+		 * @param walls The walls of the row, two bits per room
+		 * @throws IOException If the row couldn't be stored
+		 *
+		 */
+		void row(int index, long[] walls) throws IOException;
+	}
+
+	// The width of the maze (in rooms)
+	private int width;
+
+	// A random for maze generation, and the coin flips we drew from it in advance
+	private Random generator;
+	private long coins = 0;
+	private int coinsLeft = 0;
+
+	// The sets of the current row, as a Disjoint Set over its columns
+	private int[] parent;
+
+	// Which rooms of the current row lead to the row below
+	private boolean[] down;
+	private boolean[] carry;
+
+	// The root of each room of the current row, and for each root: the first
+	// room of the set in the next row, how many rooms of the set we saw, the
+	// room picked to lead down and whether any room of the set leads down
+	private int[] roots;
+	private int[] first;
+	private int[] seen;
+	private int[] pick;
+	private boolean[] any;
+
+	// The walls of the row being built
+	private long[] walls;
+
+	// How long the last generation took
+	private long elapsed = 0;
+	private int rows = 0;
+
+	/**
+	 *
+	 * A generator is created for a given width and seed
+	 *
+	 * @param w The width of the maze
+	 * @param seed The seed of the random generator (the same seed always
+	 *            generates the same maze)
+	 *
+	 */
+	public EllerGenerator(int w, long seed) {
+		width = w;
+		generator = new Random(seed);
+
+		parent = new int[w];
+		down = new boolean[w];
+		carry = new boolean[w];
+		roots = new int[w];
+		first = new int[w];
+		seen = new int[w];
+		pick = new int[w];
+		any = new boolean[w];
+		walls = new long[(2 * w + 63) >>> 6];
+	}
+
+	/**
+	 *
+	 * Generates a maze and streams its rows to a sink
+	 *
+	 * @param height The height of the maze
+	 * @param sink Where the rows go
+	 * @throws IOException If the sink failed to store a row
+	 *
+	 */
+	public void generate(int height, RowSink sink) throws IOException {
+		long begin = System.nanoTime();
+		rows = 0;
+
+		// The first row has no set in common with anything
+		for (int j = 0; j < width; ++j) {
+			parent[j] = j;
+			carry[j] = false;
+		}
+
+		for (int i = 0; i < height; ++i) {
+			boolean last = i == height - 1;
+			Arrays.fill(walls, 0L);
+
+			// Rooms that were not reached from above start a set of their own,
+			// the others were already grouped when the row above went down
+			for (int j = 0; j < width; ++j) {
+				if (i > 0 && !carry[j]) {
+					setBit(2 * j);
+				}
+			}
+
+			// Join adjacent rooms of different sets at random (all of them on the last row)
+			for (int j = 1; j < width; ++j) {
+				int r1 = find(j - 1);
+				int r2 = find(j);
+				if (r1 != r2 && (last || flip())) {
+					parent[r1] = r2;
+				}
+				else {
+					setBit(2 * j + 1);
+				}
+			}
+
+			sink.row(i, walls);
+			++rows;
+
+			if (!last) {
+				goDown();
+			}
+		}
+
+		elapsed = System.nanoTime() - begin;
+	}
+
+	/**
+	 *
+	 * Getter for the throughput of the last generation
+	 *
+	 * @return How many rows were generated per second
+	 *
+	 */
+	public double getRowsPerSecond() {
+		return elapsed == 0 ? 0 : rows * 1e9 / elapsed;
+	}
+
+	/**
+	 * Picks the rooms leading to the next row (at least one per set) and
+	 * carries the sets over to the next row
+	 */
+	private void goDown() {
+		Arrays.fill(seen, 0);
+		Arrays.fill(any, false);
+
+		// Each room goes down at random, and we keep one room of each set
+		// picked uniformly (reservoir sampling) in case none of them did
+		for (int j = 0; j < width; ++j) {
+			int root = find(j);
+			roots[j] = root;
+			down[j] = flip();
+			any[root] |= down[j];
+			if (generator.nextInt(++seen[root]) == 0) {
+				pick[root] = j;
+			}
+		}
+
+		// Make sure every set goes down
+		for (int j = 0; j < width; ++j) {
+			if (roots[j] == j) {
+				if (!any[j]) {
+					down[pick[j]] = true;
+				}
+				first[j] = -1;
+			}
+		}
+
+		// Build the sets of the next row: rooms reached from the same set share a set
+		for (int j = 0; j < width; ++j) {
+			carry[j] = down[j];
+			if (!down[j]) {
+				parent[j] = j;
+				continue;
+			}
+
+			int root = roots[j];
+			if (first[root] == -1) {
+				first[root] = j;
+			}
+			parent[j] = first[root];
+		}
+	}
+
+	/**
+	 *
+	 * This method is used to search a room's set (defined by its root), with
+	 * path halving
+	 *
+	 * @param x The column of the room
+	 * @return The root column for the room's set
+	 *
+	 */
+	private int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 *
+	 * Flips a coin, drawing 64 of them at a time from the random generator
+	 *
+	 * @return A random boolean
+	 *
+	 */
+	private boolean flip() {
+		if (coinsLeft == 0) {
+			coins = generator.nextLong();
+			coinsLeft = 64;
+		}
+		--coinsLeft;
+		boolean coin = (coins & 1) != 0;
+		coins >>>= 1;
+		return coin;
+	}
+
+	/**
+	 *
+	 * Sets one of the bits of the current row
+	 *
+	 * @param b The bit index
+	 *
+	 */
+	private void setBit(int b) {
+		walls[b >>> 6] |= 1L << b;
+	}
+}
@@ -0,0 +1,52 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This Flight Recorder event is committed for every maze generated (see
+ * MazeMetrics.generated). A progressive generation lasts from its first wall
+ * to its last one.
+ *
+ * @author Dany Khalife
+ *
+ */
+@Name("com.dkhalife.projects.Generate")
+@Label("Maze Generate")
+@Category({ "Maze Solver" })
+@Description("The generation of a random maze")
+@StackTrace(false)
+class GenerateEvent extends Event {
+	// How the maze was generated
+	@Label("Method")
+	String method;
+
+	// The size of the maze (in rooms)
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	// What was built
+	@Label("Walls Kept")
+	long walls;
+
+	@Label("Allocated")
+	@Description("The memory allocated by the generating thread, -1 if unknown")
+	@DataAmount
+	long allocated;
+}
@@ -0,0 +1,203 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+/**
+ * This class holds the connexity of the rooms of a grid maze. Since a room can
+ * only lead to its 4 direct neighbors, the adjacency list of a room is a 4-bit
+ * mask (one bit per open direction) stored in a single byte, so a whole graph
+ * costs one byte per room. The graph is only read while solving, the solvers
+ * keep their own visited flags, so several solvers can search the same graph
+ * at once.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class Graph implements Grid {
+	// The directions a room can lead to (one bit each)
+	public static final int UP = 1;
+	public static final int DOWN = 2;
+	public static final int LEFT = 4;
+	public static final int RIGHT = 8;
+
+	// The size of the grid (in rooms)
+	private int width;
+	private int height;
+
+	// The open directions of each room
+	private byte[] paths;
+
+	/**
+	 *
+	 * A graph is created with no paths between any of its rooms
+	 *
+	 * @param w The width of the grid
+	 * @param h The height of the grid
+	 *
+	 */
+	public Graph(int w, int h) {
+		width = w;
+		height = h;
+		paths = new byte[w * h];
+	}
+
+	/**
+	 *
+	 * Adds a path between two adjacent rooms
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 *
+	 */
+	public void connect(int r1, int r2) {
+		int dir = direction(r1, r2);
+		paths[r1] |= dir;
+		paths[r2] |= opposite(dir);
+	}
+
+	/**
+	 *
+	 * Removes the path between two adjacent rooms (if any)
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 *
+	 */
+	public void disconnect(int r1, int r2) {
+		int dir = direction(r1, r2);
+		paths[r1] &= ~dir;
+		paths[r2] &= ~opposite(dir);
+	}
+
+	/**
+	 *
+	 * Getter for the open directions of a room
+	 *
+	 * @param r The room
+	 * @return A mask made of UP, DOWN, LEFT and RIGHT
+	 *
+	 */
+	public int getPaths(int r) {
+		return paths[r];
+	}
+
+	/**
+	 *
+	 * Counts the paths leaving a room
+	 *
+	 * @param r The room
+	 * @return The number of adjacent rooms reachable from this room
+	 *
+	 */
+	public int degree(int r) {
+		return Integer.bitCount(paths[r]);
+	}
+
+	/**
+	 *
+	 * Finds the room adjacent to another one in a given direction
+	 *
+	 * @param r The room
+	 * @param dir One of UP, DOWN, LEFT or RIGHT
+	 * @return The adjacent room
+	 *
+	 */
+	public int neighbor(int r, int dir) {
+		switch (dir) {
+			case UP:
+				return r - width;
+			case DOWN:
+				return r + width;
+			case LEFT:
+				return r - 1;
+			default:
+				return r + 1;
+		}
+	}
+
+	/**
+	 *
+	 * Getter for the number of rooms
+	 *
+	 * @return The number of rooms in the graph
+	 *
+	 */
+	public int size() {
+		return paths.length;
+	}
+
+	/**
+	 *
+	 * Getter for the grid width
+	 *
+	 * @return The width of the grid (in rooms)
+	 *
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 *
+	 * Getter for the grid height
+	 *
+	 * @return The height of the grid (in rooms)
+	 *
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 *
+	 * Finds the direction leading from a room to an adjacent one
+	 *
+	 * @param r1 The room we are in
+	 * @param r2 The room we want to go to
+	 * @return One of UP, DOWN, LEFT or RIGHT
+	 *
+	 */
+	private int direction(int r1, int r2) {
+		if (r2 == r1 - width) {
+			return UP;
+		}
+		if (r2 == r1 + width) {
+			return DOWN;
+		}
+		if (r2 == r1 - 1) {
+			return LEFT;
+		}
+		if (r2 == r1 + 1) {
+			return RIGHT;
+		}
+
+		throw new IllegalArgumentException("Rooms " + r1 + " and " + r2 + " are not adjacent");
+	}
+
+	/**
+	 *
+	 * Flips a direction
+	 *
+	 * @param dir One of UP, DOWN, LEFT or RIGHT
+	 * @return The direction going the other way
+	 *
+	 */
+	public static int opposite(int dir) {
+		switch (dir) {
+			case UP:
+				return DOWN;
+			case DOWN:
+				return UP;
+			case LEFT:
+				return RIGHT;
+			default:
+				return LEFT;
+		}
+	}
+}
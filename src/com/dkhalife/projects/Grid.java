@@ -0,0 +1,69 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+/**
+ * A Grid is what the solvers search: a width by height grid of rooms, where a
+ * room can lead to some of its 4 direct neighbors. The Graph keeps these in
+ * memory, other grids can work them out of the walls wherever they are stored
+ * (a mapped file for instance).
+ *
+ * @author Dany Khalife
+ *
+ */
+public interface Grid {
+
+	/**
+	 *
+	 * Getter for the open directions of a room
+	 *
+	 * @param r The room
+	 * @return A mask made of Graph.UP, Graph.DOWN, Graph.LEFT and Graph.RIGHT
+	 *
+	 */
+	int getPaths(int r);
+
+	/**
+	 *
+	 * Finds the room adjacent to another one in a given direction
+	 *
+	 * @param r The room
+	 * @param dir One of Graph.UP, Graph.DOWN, Graph.LEFT or Graph.RIGHT
+	 * @return The adjacent room
+	 *
+	 */
+	int neighbor(int r, int dir);
+
+	/**
+	 *
+	 * Getter for the number of rooms
+	 *
+	 * @return The number of rooms in the grid
+	 *
+	 */
+	int size();
+
+	/**
+	 *
+	 * Getter for the grid width
+	 *
+	 * @return The width of the grid (in rooms)
+	 *
+	 */
+	int getWidth();
+
+	/**
+	 *
+	 * Getter for the grid height
+	 *
+	 * @return The height of the grid (in rooms)
+	 *
+	 */
+	int getHeight();
+}
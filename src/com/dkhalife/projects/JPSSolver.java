@@ -0,0 +1,296 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This solver performs a Jump Point Search, an A* search that only expands a
+ * few rooms (the jump points) and walks over the straight runs in between
+ * without putting them in the open set. It is meant for mostly open, hand
+ * drawn grids where BFS would expand nearly every room. It produces a minimal
+ * path.
+ *
+ * The rules are the ones for 4-connected grids, with walls between rooms
+ * instead of blocked rooms:
+ *
+ * - A vertical jump goes straight until the last room, a dead end, or a room
+ * that opens to a side when the room before it couldn't lead there as well
+ * (a forced neighbor). Such a room is a jump point.
+ *
+ * - A horizontal jump goes straight until the last room or a dead end. From
+ * every room it crosses, it also tries both vertical jumps, and stops on that
+ * room (a jump point) as soon as one of them finds something.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class JPSSolver implements Solver {
+	// The distance walked to reach each jump point, and the jump point it was reached from
+	private int[] distance;
+	private int[] previous;
+
+	// A room was reached during this search if its stamp is at least the
+	// epoch, and it was expanded if its stamp is one more than the epoch
+	private int[] stamps;
+	private int epoch = 0;
+
+	// The open set
+	private MinHeap open = new MinHeap();
+
+	// The graph being searched and the room we want to reach
+	private Grid graph;
+	private int end;
+
+	// How many rooms were expanded and crossed by the last search
+	private int expanded = 0;
+	private long scanned = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	public int[] solve(Grid g, int start, int e) {
+		graph = g;
+		end = e;
+
+		int n = graph.size();
+		int width = graph.getWidth();
+		expanded = 0;
+		frontier = 0;
+		scanned = 0;
+
+		// Only allocate when the maze changed size
+		if (stamps == null || stamps.length != n) {
+			distance = new int[n];
+			previous = new int[n];
+			stamps = new int[n];
+			epoch = 0;
+		}
+
+		// Every search uses two stamps, the array only needs clearing when the epoch wraps around
+		epoch += 2;
+		if (epoch <= 0) {
+			Arrays.fill(stamps, 0);
+			epoch = 2;
+		}
+
+		open.clear();
+		distance[start] = 0;
+		previous[start] = -1;
+		stamps[start] = epoch;
+		int h = AStarSolver.MANHATTAN.estimate(start, end, width);
+		open.push(start, h, h);
+
+		try {
+			while (!open.isEmpty()) {
+				int f = open.peekLength();
+				h = open.peekLeft();
+				frontier = Math.max(frontier, open.size());
+				int room = open.pop();
+
+				// Skip the entries left behind when a shorter way to a room was found
+				if (stamps[room] != epoch || f != distance[room] + h) {
+					continue;
+				}
+
+				stamps[room] = epoch + 1;
+				++expanded;
+
+				if (room == end) {
+					return retrace(start);
+				}
+
+				// Jump in every open direction but the one leading back
+				int paths = graph.getPaths(room);
+				if (previous[room] != -1) {
+					paths &= ~towards(room, previous[room]);
+				}
+
+				for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+					if ((paths & dir) == 0) {
+						continue;
+					}
+
+					int p = (dir == Graph.UP || dir == Graph.DOWN) ? jumpVertical(room, dir) : jumpHorizontal(room, dir);
+					if (p == -1) {
+						continue;
+					}
+
+					int d = distance[room] + steps(room, p);
+
+					// Skip the rooms that are expanded already or that we know a shorter way to
+					if (stamps[p] == epoch + 1 || (stamps[p] == epoch && distance[p] <= d)) {
+						continue;
+					}
+
+					stamps[p] = epoch;
+					distance[p] = d;
+					previous[p] = room;
+
+					h = AStarSolver.MANHATTAN.estimate(p, end, width);
+					open.push(p, d + h, h);
+				}
+			}
+
+			return null;
+		}
+		finally {
+			graph = null;
+		}
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "Jump Point Search";
+	}
+
+	/**
+	 *
+	 * Getter for the rooms crossed by the jumps of the last search
+	 *
+	 * @return How many rooms were looked at without being expanded
+	 *
+	 */
+	public long getScanned() {
+		return scanned;
+	}
+
+	/**
+	 *
+	 * Goes straight up or down from a room until a jump point
+	 *
+	 * @param room The room to jump from
+	 * @param dir Graph.UP or Graph.DOWN
+	 * @return The jump point, or -1 if we hit a dead end
+	 *
+	 */
+	private int jumpVertical(int room, int dir) {
+		while ((graph.getPaths(room) & dir) != 0) {
+			int next = graph.neighbor(room, dir);
+			++scanned;
+
+			if (next == end) {
+				return next;
+			}
+
+			// Look for a side we can only reach from this room
+			int here = graph.getPaths(room);
+			int there = graph.getPaths(next);
+			for (int side = Graph.LEFT; side <= Graph.RIGHT; side <<= 1) {
+				if ((there & side) == 0) {
+					continue;
+				}
+
+				// The room before could have led there as well by stepping aside first
+				if ((here & side) != 0 && (graph.getPaths(graph.neighbor(room, side)) & dir) != 0) {
+					continue;
+				}
+
+				return next;
+			}
+
+			room = next;
+		}
+
+		return -1;
+	}
+
+	/**
+	 *
+	 * Goes straight left or right from a room until a jump point
+	 *
+	 * @param room The room to jump from
+	 * @param dir Graph.LEFT or Graph.RIGHT
+	 * @return The jump point, or -1 if we hit a dead end
+	 *
+	 */
+	private int jumpHorizontal(int room, int dir) {
+		while ((graph.getPaths(room) & dir) != 0) {
+			int next = graph.neighbor(room, dir);
+			++scanned;
+
+			if (next == end || jumpVertical(next, Graph.UP) != -1 || jumpVertical(next, Graph.DOWN) != -1) {
+				return next;
+			}
+
+			room = next;
+		}
+
+		return -1;
+	}
+
+	/**
+	 *
+	 * Finds the direction leading from a room to another one on the same row
+	 * or column
+	 *
+	 * @param from The room we are in
+	 * @param to The room we want to go to
+	 * @return One of Graph.UP, Graph.DOWN, Graph.LEFT or Graph.RIGHT
+	 *
+	 */
+	private int towards(int from, int to) {
+		int width = graph.getWidth();
+		if (from / width == to / width) {
+			return to < from ? Graph.LEFT : Graph.RIGHT;
+		}
+		return to < from ? Graph.UP : Graph.DOWN;
+	}
+
+	/**
+	 *
+	 * Counts the steps between two rooms on the same row or column
+	 *
+	 * @param from The first room
+	 * @param to The second room
+	 * @return The distance between both rooms
+	 *
+	 */
+	private int steps(int from, int to) {
+		int width = graph.getWidth();
+		if (from / width == to / width) {
+			return Math.abs(to - from);
+		}
+		return Math.abs(to - from) / width;
+	}
+
+	/**
+	 *
+	 * Retraces the path from the last room, filling in the straight runs
+	 * between jump points
+	 *
+	 * @param start The first room
+	 * @return The rooms on the path, from start to end
+	 *
+	 */
+	private int[] retrace(int start) {
+		int[] path = new int[distance[end] + 1];
+		int i = path.length - 1;
+
+		int room = end;
+		path[i--] = room;
+		while (room != start) {
+			int jump = previous[room];
+			int dir = towards(room, jump);
+			while (room != jump) {
+				room = graph.neighbor(room, dir);
+				path[i--] = room;
+			}
+		}
+
+		return path;
+	}
+}
@@ -0,0 +1,358 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This solver answers queries on perfect mazes without searching. A perfect
+ * maze (like the ones Maze.generate builds) is a tree: there is exactly one
+ * path between two rooms, and it goes through their lowest common ancestor
+ * once the tree is rooted.
+ *
+ * The first solve roots every tree of the maze with a BFS and builds binary
+ * lifting tables: the ancestor 2^k levels above each room. After that, the
+ * ancestor is found in O(log n) (see lca and distance), and a path is
+ * extracted by climbing from both rooms, in time linear in its length.
+ *
+ * A maze with loops isn't a tree, the solver then hands the queries to a
+ * BFS. The tables are rebuilt when the graph or the version of the walls
+ * changes (see setVersion).
+ *
+ * The tables take about 4 (log2 n + 1) bytes per room, so the solvers of an
+ * engine's threads share a single copy of them (see Shared): they are never
+ * modified once built, and only the fallback and the counters are kept by
+ * each solver.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class LCASolver implements VersionedSolver {
+	/**
+	 * The tables of one graph and one version of the walls, never modified
+	 * once they are shared
+	 */
+	private static class Tables {
+		// The graph and the version of the walls they were built for
+		private final Grid graph;
+		private final long version;
+
+		// Is the graph a tree (or a forest) ?
+		private final boolean tree;
+
+		// The depth of each room, and its ancestors: up[k][r] is 2^k levels above r (roots are their own parent)
+		private final int[] depth;
+		private final int[][] up;
+
+		/**
+		 *
+		 * Tables are created once they are built
+		 *
+		 * @param g The graph
+		 * @param v The version of the walls
+		 * @param t Is the graph a tree ?
+		 * @param d The depth of each room
+		 * @param u The ancestors of each room
+		 *
+		 */
+		private Tables(Grid g, long v, boolean t, int[] d, int[][] u) {
+			graph = g;
+			version = v;
+			tree = t;
+			depth = d;
+			up = u;
+		}
+	}
+
+	/**
+	 * The tables shared by several solvers (like the ones of each thread of an
+	 * engine, see MazeEngine.factory). The first solver to query a new graph
+	 * or version builds them while the others wait, then they all read the
+	 * same copy.
+	 */
+	public static class Shared {
+		// The last tables built, null until the first ones are (or while they are rebuilt in place)
+		private Tables tables = null;
+
+		// How many solvers use these tables
+		private int users = 0;
+
+		/**
+		 *
+		 * Finds the tables of a graph, building them if they aren't yet
+		 *
+		 * @param g The graph about to be solved
+		 * @param v The version of its walls
+		 * @param solver The solver asking for them (it builds them if needed)
+		 * @return The tables
+		 *
+		 */
+		private synchronized Tables get(Grid g, long v, LCASolver solver) {
+			if (tables != null && tables.graph == g && tables.version == v) {
+				return tables;
+			}
+
+			// A single solver can reuse the arrays of its previous tables, nobody else reads them
+			Tables old = users == 1 ? tables : null;
+			tables = null;
+			tables = solver.build(g, v, old);
+			return tables;
+		}
+
+		/**
+		 *
+		 * Counts a new solver of these tables
+		 *
+		 */
+		private synchronized void join() {
+			++users;
+		}
+	}
+
+	// The tables shared with the other solvers, and the ones used by the last solve
+	private final Shared shared;
+	private Tables tables = null;
+
+	// The version of the walls of the next solves
+	private long version = 0;
+
+	// Solves the mazes that aren't trees
+	private BFSSolver fallback = new BFSSolver();
+
+	// How many rooms were expanded by the last solve
+	private int expanded = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	/**
+	 *
+	 * A solver is created with tables of its own
+	 *
+	 */
+	public LCASolver() {
+		this(new Shared());
+	}
+
+	/**
+	 *
+	 * A solver is created with tables shared with other solvers
+	 *
+	 * @param s The shared tables
+	 *
+	 */
+	public LCASolver(Shared s) {
+		shared = s;
+		shared.join();
+	}
+
+	public int[] solve(Grid g, int start, int end) {
+		expanded = 0;
+		frontier = 0;
+		tables = shared.get(g, version, this);
+
+		if (!tables.tree) {
+			int[] path = fallback.solve(g, start, end);
+			expanded = fallback.getExpanded();
+			frontier = fallback.getFrontier();
+			return path;
+		}
+
+		int l = lca(start, end);
+		if (l == -1) {
+			return null;
+		}
+
+		// Climb from the first room up to the ancestor, and from the last room down to it
+		int[] depth = tables.depth;
+		int[] parent = tables.up[0];
+		int[] path = new int[depth[start] + depth[end] - 2 * depth[l] + 1];
+		int i = 0;
+		for (int room = start; room != l; room = parent[room]) {
+			path[i++] = room;
+		}
+		path[i] = l;
+		int j = path.length - 1;
+		for (int room = end; room != l; room = parent[room]) {
+			path[j--] = room;
+		}
+
+		return path;
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "LCA";
+	}
+
+	public void setVersion(long v) {
+		version = v;
+	}
+
+	/**
+	 *
+	 * Finds the lowest common ancestor of two rooms. The tables must be built
+	 * (by a solve on the same graph).
+	 *
+	 * @param a The first room
+	 * @param b The second room
+	 * @return Their lowest common ancestor, or -1 if they are in different
+	 *         trees (or the maze isn't a tree)
+	 *
+	 */
+	public int lca(int a, int b) {
+		if (tables == null || !tables.tree) {
+			return -1;
+		}
+		int[] depth = tables.depth;
+		int[][] up = tables.up;
+
+		if (depth[a] < depth[b]) {
+			int swap = a;
+			a = b;
+			b = swap;
+		}
+
+		// Bring the deepest room to the level of the other one
+		int diff = depth[a] - depth[b];
+		for (int k = 0; diff != 0; ++k, diff >>>= 1) {
+			if ((diff & 1) != 0) {
+				a = up[k][a];
+			}
+		}
+		if (a == b) {
+			return a;
+		}
+
+		// Climb both rooms as long as they stay apart
+		for (int k = up.length - 1; k >= 0; --k) {
+			if (up[k][a] != up[k][b]) {
+				a = up[k][a];
+				b = up[k][b];
+			}
+		}
+
+		// Two different roots are their own parents
+		return up[0][a] == up[0][b] ? up[0][a] : -1;
+	}
+
+	/**
+	 *
+	 * Computes the length of the path between two rooms. The tables must be
+	 * built (by a solve on the same graph).
+	 *
+	 * @param a The first room
+	 * @param b The second room
+	 * @return The number of steps between both rooms, or -1 if there is no
+	 *         path (or the maze isn't a tree)
+	 *
+	 */
+	public int distance(int a, int b) {
+		int l = lca(a, b);
+		return l == -1 ? -1 : tables.depth[a] + tables.depth[b] - 2 * tables.depth[l];
+	}
+
+	/**
+	 *
+	 * Builds the tables of a graph (the rooms expanded are counted by this
+	 * solver)
+	 *
+	 * @param g The graph about to be solved
+	 * @param v The version of its walls
+	 * @param old Tables whose arrays can be reused, or null
+	 * @return The new tables
+	 *
+	 */
+	private Tables build(Grid g, long v, Tables old) {
+		int n = g.size();
+		int[] depth;
+		int[][] up;
+		if (old != null && old.depth.length == n) {
+			depth = old.depth;
+			up = old.up;
+		} else {
+			depth = new int[n];
+			up = new int[1][n];
+		}
+		Arrays.fill(depth, -1);
+
+		// Root every tree with a BFS, counting the paths to tell trees from mazes with loops
+		int[] parent = up[0];
+		int[] queue = new int[n];
+		int trees = 0;
+		long edges = 0;
+		int deepest = 0;
+		for (int root = 0; root < n; ++root) {
+			if (depth[root] != -1) {
+				continue;
+			}
+			++trees;
+
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = root;
+			depth[root] = 0;
+			parent[root] = root;
+			while (head != tail) {
+				frontier = Math.max(frontier, tail - head);
+				int room = queue[head++];
+				++expanded;
+
+				int paths = g.getPaths(room);
+				for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+					if ((paths & dir) == 0) {
+						continue;
+					}
+					++edges;
+					int p = g.neighbor(room, dir);
+					if (depth[p] == -1) {
+						depth[p] = depth[room] + 1;
+						parent[p] = room;
+						deepest = Math.max(deepest, depth[p]);
+						queue[tail++] = p;
+					}
+				}
+			}
+		}
+
+		// Every path was counted from both of its rooms, a forest has one path less than rooms per tree
+		boolean tree = edges / 2 == n - trees;
+		if (!tree) {
+			return new Tables(g, v, false, depth, new int[][] { parent });
+		}
+
+		// The ancestors 2^k levels up are the 2^(k-1) levels up of the 2^(k-1) levels up
+		int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(deepest));
+		if (up.length != levels) {
+			int[][] grown = new int[levels][];
+			grown[0] = parent;
+			for (int k = 1; k < levels; ++k) {
+				grown[k] = k < up.length ? up[k] : new int[n];
+			}
+			up = grown;
+		}
+		for (int k = 1; k < levels; ++k) {
+			int[] half = up[k - 1];
+			int[] full = up[k];
+			for (int r = 0; r < n; ++r) {
+				full[r] = half[half[r]];
+			}
+		}
+
+		// The tables are only shared once they are complete, in case the BFS is cancelled halfway
+		return new Tables(g, v, true, depth, up);
+	}
+}
@@ -0,0 +1,269 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This solver performs a Lifelong Planning A* (LPA*) search, an A* search that
+ * keeps its state after it found a path. When a wall appears or disappears
+ * (see wallChanged), only the rooms whose distance from the first room
+ * changes are searched again on the next solve, instead of the whole maze.
+ * It produces a minimal path.
+ *
+ * Every room has a distance g (the one the search settled on) and a lookahead
+ * rhs (one more than the smallest g of the rooms it leads to). Rooms where
+ * both differ are inconsistent, and wait in the open set ordered by
+ * (min(g, rhs) + h, min(g, rhs)). A search stops once the last room is
+ * consistent and nothing in the open set can beat it.
+ *
+ * The state is kept as long as the same graph, first room and last room are
+ * solved again. Anything else starts a new search.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class LPAStarSolver implements Solver {
+	// The distance of a room that wasn't reached
+	private static final int INFINITY = Integer.MAX_VALUE;
+
+	// The distance and the lookahead of each room
+	private int[] g;
+	private int[] rhs;
+
+	// The open set (entries of rooms that became consistent or changed key are skipped)
+	private MinHeap open = new MinHeap();
+
+	// The search the state belongs to
+	private Grid graph = null;
+	private int start = -1;
+	private int end = -1;
+
+	// How many rooms were expanded by the last solve, and had their lookahead recomputed by it and the edits before it
+	private int expanded = 0;
+	private int updated = 0;
+
+	// The updates were counted by a solve, the next edit or solve starts the count over
+	private boolean counted = false;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	public int[] solve(Grid gr, int s, int e) {
+		expanded = 0;
+		frontier = 0;
+		restartCount();
+
+		// Start over unless we are asked the same question on the same graph
+		if (gr != graph || s != start || e != end || g == null || g.length != gr.size()) {
+			int n = gr.size();
+			if (g == null || g.length != n) {
+				g = new int[n];
+				rhs = new int[n];
+			}
+			Arrays.fill(g, INFINITY);
+			Arrays.fill(rhs, INFINITY);
+			open.clear();
+
+			graph = gr;
+			start = s;
+			end = e;
+
+			// The edits were made to a search that is thrown away
+			updated = 0;
+
+			rhs[start] = 0;
+			push(start);
+		}
+
+		search();
+		counted = true;
+
+		return g[end] == INFINITY ? null : retrace();
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "LPA*";
+	}
+
+	/**
+	 *
+	 * Getter for the rooms touched by the last solve, and by the walls that
+	 * changed before it (see wallChanged)
+	 *
+	 * @return How many rooms had their lookahead recomputed
+	 *
+	 */
+	public int getUpdated() {
+		return updated;
+	}
+
+	/**
+	 *
+	 * Tells the solver that the wall between two rooms appeared or
+	 * disappeared. The graph must already be updated, and the next solve will
+	 * repair the path.
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 *
+	 */
+	public void wallChanged(int r1, int r2) {
+		if (graph == null) {
+			return;
+		}
+		restartCount();
+		update(r1);
+		update(r2);
+	}
+
+	/**
+	 * Starts counting the updated rooms over, if the count was already
+	 * reported by a solve
+	 */
+	private void restartCount() {
+		if (counted) {
+			updated = 0;
+			counted = false;
+		}
+	}
+
+	/**
+	 * Forgets the state, the next solve starts a new search
+	 */
+	public void forget() {
+		graph = null;
+	}
+
+	/**
+	 * Expands the inconsistent rooms until the distance of the last room is known
+	 */
+	private void search() {
+		int width = graph.getWidth();
+
+		while (!open.isEmpty()) {
+			int k1 = open.peekLength();
+			int k2 = open.peekLeft();
+
+			// Drop the entries of rooms that became consistent or got another key since
+			int top = open.peek();
+			if (g[top] == rhs[top] || k2 != Math.min(g[top], rhs[top]) || k1 != k2 + AStarSolver.MANHATTAN.estimate(top, end, width)) {
+				open.pop();
+				continue;
+			}
+
+			// Stop once nothing left can shorten the path to the last room
+			int best = Math.min(g[end], rhs[end]);
+			if (g[end] == rhs[end] && best != INFINITY) {
+				int goal = best + AStarSolver.MANHATTAN.estimate(end, end, width);
+				if (k1 > goal || (k1 == goal && k2 >= best)) {
+					break;
+				}
+			}
+
+			frontier = Math.max(frontier, open.size());
+			int room = open.pop();
+			++expanded;
+
+			if (g[room] > rhs[room]) {
+				// Overconsistent: settle on the lookahead
+				g[room] = rhs[room];
+			}
+			else {
+				// Underconsistent: the room got further, forget its distance and look again
+				g[room] = INFINITY;
+				update(room);
+			}
+
+			int paths = graph.getPaths(room);
+			for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+				if ((paths & dir) != 0) {
+					update(graph.neighbor(room, dir));
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Recomputes the lookahead of a room, and puts it in the open set if it
+	 * became inconsistent
+	 *
+	 * @param room The room
+	 *
+	 */
+	private void update(int room) {
+		++updated;
+
+		if (room != start) {
+			int best = INFINITY;
+			int paths = graph.getPaths(room);
+			for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+				if ((paths & dir) != 0) {
+					int d = g[graph.neighbor(room, dir)];
+					if (d != INFINITY && d + 1 < best) {
+						best = d + 1;
+					}
+				}
+			}
+			rhs[room] = best;
+		}
+
+		if (g[room] != rhs[room]) {
+			push(room);
+		}
+	}
+
+	/**
+	 *
+	 * Puts a room in the open set with its current key
+	 *
+	 * @param room The room
+	 *
+	 */
+	private void push(int room) {
+		int k2 = Math.min(g[room], rhs[room]);
+		open.push(room, k2 + AStarSolver.MANHATTAN.estimate(room, end, graph.getWidth()), k2);
+	}
+
+	/**
+	 *
+	 * Walks back from the last room, always to the neighbor closest to the
+	 * first room
+	 *
+	 * @return The rooms on the path, from start to end
+	 *
+	 */
+	private int[] retrace() {
+		int[] path = new int[g[end] + 1];
+		int room = end;
+		for (int i = path.length - 1; i > 0; --i) {
+			path[i] = room;
+
+			int paths = graph.getPaths(room);
+			for (int dir = Graph.UP; dir <= Graph.RIGHT; dir <<= 1) {
+				if ((paths & dir) != 0 && g[graph.neighbor(room, dir)] == g[room] - 1) {
+					room = graph.neighbor(room, dir);
+					break;
+				}
+			}
+		}
+		path[0] = start;
+
+		return path;
+	}
+}
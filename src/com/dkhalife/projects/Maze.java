@@ -8,10 +8,11 @@ package com.dkhalife.projects;
  * 
  */
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.Random;
-import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class implements a Disjoint Set using path compression and union by
@@ -23,34 +24,61 @@ import java.util.Vector;
  * 
  */
 public class Maze {
+	// The path of a maze that isn't solved
+	private static final int[] NO_PATH = new int[0];
+
 	// We will need to know the walls and which rooms they block
-	public Vector<Wall> maze;
+	public WallSet maze;
 	// We will also need a graph with the connexity of each room
-	public Vector<Room> graph;
-	// This vector will hold the path from the top-left-most room to the bottom-right-most room
-	public Vector<Integer> path;
+	public Graph graph;
+	// This array will hold the path from the first room to the last room (empty if the maze isn't solved)
+	public int[] path;
 
 	// The size of the maze (in squares)
 	public int height;
 	public int width;
 
 	// These are the indices of our first and last rooms
-	private int firstRoom;
-	private int lastRoom;
+	private int firstRoom = -1;
+	private int lastRoom = -1;
 
-	// A random for maze generation
+	// A random for maze generation, and the seed it was given (0 if none)
 	private Random generator;
+	private long seed = 0;
 
 	// A disjoint set is used to check/keep the connexity between the rooms
 	private DisjointSet ds;
 
+	// Walls were added since the disjoint set was built, so two rooms of the
+	// same set might not be connected anymore (it can't split sets)
+	private boolean split = false;
+
+	// Bumped on every change to the walls
+	private long version = 0;
+
+	// The last error met while solving (null if there was none)
+	private String error = null;
+
 	// Is the current maze solved / custom drawn / filled ?
 	private boolean solved = false;
 	private boolean custom = true;
 	private boolean filled = false;
 
-	// Which method are we using? (DFS = false, BFS = true)
-	private boolean BFS = false;
+	// The methods we can solve with, and the one we are using
+	private Solver[] solvers = { new DFSSolver(), new BFSSolver(), new BidirectionalBFSSolver(), new AStarSolver(), new JPSSolver(), new LPAStarSolver(),
+			new BFSTreeCache(), new LCASolver() };
+	private Solver solver = solvers[0];
+
+	// The graph as seen by the searches run on another thread (see watch)
+	private WatchedGrid watched = null;
+
+	// How long begin took to rebuild the graph (0 if it didn't need to)
+	private long graphNanos = 0;
+
+	// Searches from several rooms to several others (see solve(int[], int[])),
+	// and whether the first and last rooms were picked by one of them
+	private BFSSolver nearest = null;
+	private boolean picked = false;
 
 	// We need to keep a reference to the containing window
 	Panel panel = null;
@@ -76,298 +104,602 @@ public class Maze {
 	public void reset() {
 		// Reset all variables
 		ds = new DisjointSet(width * height);
-		path = new Vector<Integer>();
-		graph = new Vector<Room>();
-		maze = new Vector<Wall>();
+		path = NO_PATH;
+		graph = new Graph(width, height);
+		maze = new WallSet(width, height);
 
 		filled = false;
 		solved = false;
+		custom = true;
+		split = false;
+		firstRoom = -1;
+		lastRoom = -1;
+		++version;
 	}
 
 	/**
 	 * Calling this method will generate a random maze
 	 */
 	public void generate() {
-		// Fill the maze with some walls
-		for (int i = 0; i < height; ++i) {
-			for (int j = 0; j < width; ++j) {
-				if (i > 0) {
-					maze.add(new Wall(j + i * height, j + (i - 1) * height));
-				}
-				if (j > 0) {
-					maze.add(new Wall(j + i * height, j - 1 + i * height));
-				}
-			}
-		}
+		GenerateEvent event = new GenerateEvent();
+		event.begin();
+		long begin = System.nanoTime();
+		long bytes = MazeMetrics.allocated();
 
-		// Create the graph by adding all the rooms
-		for (int i = 0; i < height * width; ++i)
-			graph.add(new Room(i));
+		// Start with all the walls, in a random order
+		int[] walls = shuffledWalls();
 
-		// Shuffle all the walls
-		generator = new Random();
-		for (int i = 0; i < maze.size(); ++i) {
-			int rnd = generator.nextInt(maze.size());
-
-			Wall tmp = maze.get(rnd);
-			maze.set(rnd, maze.get(i));
-			maze.set(i, tmp);
-		}
-
-		// Make sure the connexity propperty is achieved by removing all walls that block two disjoint rooms
-		for (int i = maze.size() - 1; i >= 0; --i) {
-			Wall w = maze.get(i);
-			int r1 = w.room1;
-			int r2 = w.room2;
+		// Make sure the connexity propperty is achieved by carving all walls that block two disjoint rooms,
+		// the walls we keep are moved to the front of the array as we go
+		int kept = 0;
+		for (int i = 0; i < walls.length; ++i) {
+			int r1 = walls[i] >>> 1;
+			int r2 = (walls[i] & 1) == 0 ? r1 - width : r1 - 1;
 
 			// If the rooms blocked by this wall are disjoint 
-			if (ds.find(r1) != ds.find(r2)/* || ds.find(r1) == -1 */) {
-				// Remove this wall
-				maze.remove(w);
+			if (ds.find(r1) != ds.find(r2)) {
 				// Add both rooms to the same set 
 				ds.union(r1, r2);
 
 				// Add a path from each room to the other 
-				Room room1 = graph.get(r1);
-				Room room2 = graph.get(r2);
-				room1.paths.add(room2.id);
-				room2.paths.add(room1.id);
+				graph.connect(r1, r2);
+			}
+			else {
+				walls[kept++] = walls[i];
 			}
 		}
 
+		// Now fill the maze with the walls that are left
+		for (int i = 0; i < kept; ++i) {
+			int r1 = walls[i] >>> 1;
+			maze.add(r1, (walls[i] & 1) == 0 ? r1 - width : r1 - 1);
+		}
+
+		// The graph was built along with the walls
+		custom = false;
 		filled = true;
+		++version;
+
+		MazeMetrics.generated(event, "Kruskal", width, height, kept, System.nanoTime() - begin, bytes < 0 ? -1 : MazeMetrics.allocated() - bytes);
 	}
 
 	/**
-	 * This method will solve the current maze. The maze will only be solved
-	 * once unless it is modified.
+	 * 
+	 * Calling this method will generate a random maze using all the threads of
+	 * a pool. The shuffled walls are split between the threads, which carve
+	 * them concurrently through a lock-free Disjoint Set.
+	 * 
+	 * @param pool The pool to run the generation in
+	 * 
 	 */
-	public void solve(int start, int end) {
-		// Only solve once
-		if (solved && start == firstRoom && end == lastRoom) {
-			return;
+	public void generate(ForkJoinPool pool) {
+		GenerateEvent event = new GenerateEvent();
+		event.begin();
+		long begin = System.nanoTime();
+		long bytes = MazeMetrics.allocated();
+
+		int[] walls = shuffledWalls();
+		byte[] carved = new byte[walls.length];
+
+		pool.invoke(new ParallelKruskal(walls, carved, new ConcurrentDisjointSet(width * height), width, 0, walls.length));
+
+		// Now that we know which walls are carved, fill the maze and the graph
+		for (int i = 0; i < walls.length; ++i) {
+			int r1 = walls[i] >>> 1;
+			int r2 = (walls[i] & 1) == 0 ? r1 - width : r1 - 1;
+
+			if (carved[i] == 0) {
+				maze.add(r1, r2);
+			}
+			else {
+				ds.union(r1, r2);
+				graph.connect(r1, r2);
+			}
 		}
 
-		// Set the new start and end
-		firstRoom = start;
-		lastRoom = end;
+		// The graph was built along with the walls
+		custom = false;
+		filled = true;
+		++version;
 
-		// If it is a user input 
-		if (custom) {
-			// Reset our variables
-			path.clear();
-			ds = new DisjointSet(width * height);
-			graph = new Vector<Room>();
+		// Only the memory of the calling thread is counted, not the pool's
+		MazeMetrics.generated(event, "Parallel Kruskal", width, height, maze.size(), System.nanoTime() - begin, bytes < 0 ? -1 : MazeMetrics.allocated() - bytes);
+	}
 
-			// Refill the graph with all the rooms
-			for (int i = 0; i < height; ++i) {
-				for (int j = 0; j < width; ++j) {
-					graph.add(new Room(i * width + j));
+	/**
+	 * 
+	 * Starts generating a random maze a few walls at a time: every wall is put
+	 * up, and the walls to carve are handed out by the returned generator.
+	 * Carving them with removeWall, in order, gives the same kind of maze as
+	 * generate.
+	 * 
+	 * @return The generator of the walls to carve
+	 * 
+	 */
+	public ProgressiveGenerator startGeneration() {
+		reset();
+		maze.fill();
+
+		// No room leads anywhere yet, so the graph already matches the walls
+		custom = false;
+		++version;
+
+		if (generator == null) {
+			generator = new Random();
+		}
+		return new ProgressiveGenerator(width, height, generator);
+	}
+
+	/**
+	 * 
+	 * Lists all the inner walls of the maze in a random order. Walls are
+	 * identified the way the WallSet stores them: the top wall of room r is
+	 * 2 * r and its left wall is 2 * r + 1.
+	 * 
+	 * @return The shuffled walls
+	 * 
+	 */
+	private int[] shuffledWalls() {
+		int[] walls = new int[(width - 1) * height + width * (height - 1)];
+		int count = 0;
+		for (int i = 0; i < height; ++i) {
+			for (int j = 0; j < width; ++j) {
+				int r = i * width + j;
+				if (i > 0) {
+					walls[count++] = r << 1;
+				}
+				if (j > 0) {
+					walls[count++] = (r << 1) + 1;
 				}
 			}
+		}
 
-			// Fill the graph with adjacent vertices
-			for (int i = 0; i < height; ++i) {
-				for (int j = 0; j < width; ++j) {
-					int r1 = i * width + j;
+		// Fisher-Yates shuffle
+		if (generator == null) {
+			generator = new Random();
+		}
+		for (int i = walls.length - 1; i > 0; --i) {
+			int rnd = generator.nextInt(i + 1);
 
-					// Worst case, we have 4 adjacent rooms, lets examine each one if its available
+			int tmp = walls[rnd];
+			walls[rnd] = walls[i];
+			walls[i] = tmp;
+		}
 
-					if (i > 0) {
-						// We have a top
-						// Can we find a wall blocking this room and the one to its top?
-						int r2 = (i - 1) * width + j;
-						if (!maze.contains(new Wall(r1, r2))) {
-							ds.union(r1, r2);
+		return walls;
+	}
 
-							graph.get(r1).paths.add(r2);
-							graph.get(r2).paths.add(r1);
-						}
-					}
+	/**
+	 * This method will solve the current maze. The maze will only be solved
+	 * once unless it is modified.
+	 */
+	public void solve(int start, int end) {
+		if (begin(start, end)) {
+			finish(search(graph));
+		}
+	}
 
-					if (i < height - 1) {
-						// We have a  bottom
-						// Can we find a wall blocking this room and the one to its bottom?
-						int r2 = (i + 1) * width + j;
-						if (!maze.contains(new Wall(r1, r2))) {
-							ds.union(r1, r2);
+	/**
+	 * 
+	 * Solves the maze from any of several rooms to any of several others: a
+	 * single BFS starts from all the first rooms at once, and stops at the
+	 * first of the last rooms it reaches. The path found is the shortest
+	 * between any pair of rooms, and the pair it joins becomes the first and
+	 * last room of the maze (see getFirstRoom and getLastRoom). This always
+	 * searches with a BFS, whatever the solver of the maze.
+	 * 
+	 * @param starts The rooms the path may start from
+	 * @param ends The rooms the path may end at
+	 * 
+	 */
+	public void solve(int[] starts, int[] ends) {
+		firstRoom = -1;
+		lastRoom = -1;
+		path = NO_PATH;
+		error = null;
+		picked = true;
+		long built = custom ? System.nanoTime() : 0;
+		getGraph();
+		graphNanos = built == 0 ? 0 : System.nanoTime() - built;
+
+		// The rooms must be in the maze
+		if (starts.length == 0 || ends.length == 0 || !inside(starts) || !inside(ends)) {
+			alert("Please pick the first and last rooms inside the maze!");
+			return;
+		}
 
-							graph.get(r1).paths.add(r2);
-							graph.get(r2).paths.add(r1);
-						}
-					}
+		// Test of connexity, one of the first rooms must share its set with one of the last rooms
+		HashSet<Integer> sets = new HashSet<Integer>();
+		for (int start : starts) {
+			sets.add(ds.find(start));
+		}
+		boolean connected = false;
+		for (int end : ends) {
+			connected |= sets.contains(ds.find(end));
+		}
+		if (!connected) {
+			alert("Please make sure the first and last rooms are connected!");
+			return;
+		}
 
-					if (j > 0) {
-						// We have a left
-						// Can we find a wall blocking this room and the one to its left
-						int r2 = r1 - 1;
-						if (!maze.contains(new Wall(r1, r2))) {
-							ds.union(r1, r2);
+		if (nearest == null) {
+			nearest = new BFSSolver();
+		}
+		// The paths read are only counted through a watched grid
+		Grid g = MazeMetrics.isActive() ? watch() : graph;
+		int[] p = MazeMetrics.solve(nearest, g, starts, ends, graphNanos);
+		if (p != null) {
+			firstRoom = p[0];
+			lastRoom = p[p.length - 1];
+		}
+		finish(p);
+	}
 
-							graph.get(r1).paths.add(r2);
-							graph.get(r2).paths.add(r1);
-						}
-					}
+	/**
+	 * 
+	 * Checks that rooms are in the maze
+	 * 
+	 * @param rooms The rooms
+	 * @return True if every room is
+	 * 
+	 */
+	private boolean inside(int[] rooms) {
+		for (int room : rooms) {
+			if (room < 0 || room >= width * height) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-					if (j < width - 1) {
-						// We have a right
-						// Can we find a wall blocking this room and the one to its right
-						int r2 = r1 + 1;
-						if (!maze.contains(new Wall(r1, r2))) {
-							ds.union(r1, r2);
+	/**
+	 * 
+	 * Gets ready to solve the maze: checks the rooms and brings the graph up
+	 * to date. solve is made of begin, search and finish, so that the search
+	 * can run on another thread; the maze must not change until finish (or
+	 * abandon) is called.
+	 * 
+	 * @param start The first room
+	 * @param end The last room
+	 * @return True if there is something to search, false if the maze was
+	 *         already solved or the rooms can't be solved (the error is set)
+	 * 
+	 */
+	boolean begin(int start, int end) {
+		// Only solve once
+		if (solved && start == firstRoom && end == lastRoom) {
+			return false;
+		}
 
-							graph.get(r1).paths.add(r2);
-							graph.get(r2).paths.add(r1);
-						}
-					}
-				}
-			}
+		// Set the new start and end
+		firstRoom = start;
+		lastRoom = end;
+		picked = false;
+
+		// Forget about the previous search, and rebuild the graph if it is a user input
+		path = NO_PATH;
+		error = null;
+		long built = custom ? System.nanoTime() : 0;
+		getGraph();
+		graphNanos = built == 0 ? 0 : System.nanoTime() - built;
+
+		// The rooms must be in the maze
+		if (firstRoom < 0 || firstRoom >= width * height || lastRoom < 0 || lastRoom >= width * height) {
+			forget();
+			alert("Please pick the first and last room inside the maze!");
+			return false;
 		}
 
 		// Test of connexity
 		if (ds.find(firstRoom) != ds.find(lastRoom) || ds.find(firstRoom) == -1) {
+			forget();
 			alert("Please make sure the first and last room are connected!");
-			return;
+			return false;
 		}
 
-		// Sove using the desired method, and alert in case of error
-		if (!(BFS ? BFSSolve() : DFSSolve(firstRoom))) {
-			alert("No path was found!");
+		if (solver instanceof VersionedSolver) {
+			// What it kept is only good for the walls it was built with
+			((VersionedSolver) solver).setVersion(version);
 		}
 
-		solved = true;
+		return true;
+	}
+
+	/**
+	 * Forgets the rooms given to begin when they can't be solved (or have no
+	 * path), so the edits that follow don't try to repair them (see
+	 * needsRepair)
+	 */
+	private void forget() {
+		firstRoom = -1;
+		lastRoom = -1;
 	}
 
 	/**
 	 * 
-	 * This method will perform a DFS (or Depth-First-Search) in order to solve
-	 * the maze. This does not produce a minimal path.
+	 * Searches the path between the rooms given to begin, with the desired
+	 * method. This is the only part of solve that may run on another thread.
 	 * 
-	 * @param i The index of the room we reached
-	 * @return True if a path passing by this room took us to the lastRoom
+	 * @param g The grid to search: the graph, or the grid watching it (see
+	 *            watch)
+	 * @return The rooms on the path, or null if there is none
 	 * 
 	 */
-	private boolean DFSSolve(Integer i) {
-		// Get the current room
-		Room r = graph.get(i);
-
-		// This room has been explored
-		r.visited = true;
+	int[] search(Grid g) {
+		// The paths read are only counted through a watched grid
+		if (!(g instanceof WatchedGrid) && MazeMetrics.isActive()) {
+			g = watch();
+		}
+		return MazeMetrics.solve(solver, g, firstRoom, lastRoom, graphNanos);
+	}
 
-		// Since we passed by here, lets add the room to the path
-		path.add(i);
+	/**
+	 * 
+	 * Getter for the graph, wrapped so that a search on another thread can be
+	 * followed and cancelled. Call it after begin, the count of the rooms
+	 * expanded starts over.
+	 * 
+	 * @return The graph, watched
+	 * 
+	 */
+	WatchedGrid watch() {
+		// Solvers keep their state for the grid they searched, so the same one is handed out for the same graph
+		if (watched == null || !watched.watches(graph)) {
+			watched = new WatchedGrid(graph);
+		}
+		watched.reset();
+		return watched;
+	}
 
-		// If we are at the last room, we don't need to go further, lets return true and the cascade will make sure we get the right path
-		if (i == lastRoom) {
-			return true;
+	/**
+	 * 
+	 * Keeps the path found by search, and alerts in case of error
+	 * 
+	 * @param p The rooms on the path, or null if there is none
+	 * 
+	 */
+	void finish(int[] p) {
+		if (p == null) {
+			// The disjoint set can't tell once walls were added, the search just did
+			forget();
+			alert(split ? "Please make sure the first and last room are connected!" : "No path was found!");
+		}
+		else {
+			path = p;
 		}
 
-		// If we reached a dead-end (there is only path leaving the current room) then lets step back, removing this room from the path, the cascade will retrace the path too
-		// This condition is also true for the first room, so we'll skip i = 0 to avoid considering the first room as a dead-end
-		if (i != 0 && r.paths.size() == 1) {
-			path.remove(i);
-			return false;
+		solved = true;
+	}
+
+	/**
+	 * Gives up on a search that was cancelled: the maze stays unsolved, and a
+	 * solver that repairs its previous search starts over the next time
+	 */
+	void abandon() {
+		path = NO_PATH;
+		solved = false;
+
+		// Its search stopped halfway
+		if (solver instanceof LPAStarSolver) {
+			((LPAStarSolver) solver).forget();
 		}
+	}
 
-		// This will tell us wether a path was from from this room to the last room
-		boolean pathFound = false;
+	/**
+	 * 
+	 * Getter for the graph of the maze. If the walls were modified since the
+	 * graph was last built (see setCustom), it is rebuilt from the walls first.
+	 * 
+	 * @return The connexity of the rooms
+	 * 
+	 */
+	public Graph getGraph() {
+		// If it is a user input 
+		if (custom) {
+			// Reset our variables
+			ds = new DisjointSet(width * height);
+			graph = new Graph(width, height);
 
-		// Lets check each path going from this room
-		for (Integer p : r.paths) {
-			Room target = graph.get(p);
+			// Fill the graph with adjacent vertices
+			for (int i = 0; i < height; ++i) {
+				for (int j = 0; j < width; ++j) {
+					int r1 = i * width + j;
 
-			if (!target.visited) { // we exclude any path going to a visited room (which also means, a path going backwards)
-				if (DFSSolve(p)) { // recursively check each adjacent room
-					pathFound = true; // once we find a path we need to stop looking
-					break;
+					// Every room owns the walls on its top and on its left, so
+					// looking in these two directions covers each pair once
+
+					if (i > 0 && !maze.hasTop(r1)) {
+						// We have a path to the top
+						int r2 = r1 - width;
+						ds.union(r1, r2);
+						graph.connect(r1, r2);
+					}
+
+					if (j > 0 && !maze.hasLeft(r1)) {
+						// We have a path to the left
+						int r2 = r1 - 1;
+						ds.union(r1, r2);
+						graph.connect(r1, r2);
+					}
 				}
 			}
-		}
 
-		// If no path was found from here, then we need to remove this room from the path and step back
-		if (!pathFound) {
-			path.remove(i);
+			custom = false;
+			split = false;
 		}
 
-		// Return this cascadingly, so that any room leading here will also have the same result
-		return pathFound;
+		return graph;
 	}
 
 	/**
 	 * 
-	 * This method will perform a BFS (or Breadth-First-Search) in order to
-	 * solve the maze. This produces a minimal path.
-	 * 
-	 * @param i The room to start from
+	 * Adds a wall between two adjacent rooms, and cuts the path between them
+	 * in the graph. Only these two rooms are updated, the graph isn't rebuilt.
 	 * 
-	 * @return True if the maze was solved
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * @return True if the wall was added, false if it was already there or
+	 *         the rooms aren't adjacent
 	 * 
 	 */
-	private boolean BFSSolve() {
-		// This will let us know when the maze is solved, to stop looking
-		boolean pathFound = false;
+	public boolean addWall(int r1, int r2) {
+		if (!maze.add(r1, r2)) {
+			return false;
+		}
 
-		// To perform a BFS we'll need a queue
-		Queue<RoomNode> q = new LinkedList<RoomNode>();
+		// If the graph is to be rebuilt anyway, it will see the new wall
+		if (!custom) {
+			graph.disconnect(r1, r2);
+			split = true;
+			changed(r1, r2);
+		}
+
+		++version;
+		solved = false;
+		return true;
+	}
 
-		// Lets get our first room
-		Room r = graph.get(firstRoom);
+	/**
+	 * 
+	 * Removes the wall between two adjacent rooms, and opens the path between
+	 * them in the graph. Only these two rooms are updated, the graph isn't
+	 * rebuilt.
+	 * 
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * @return True if the wall was removed, false if there was none
+	 * 
+	 */
+	public boolean removeWall(int r1, int r2) {
+		if (!maze.remove(r1, r2)) {
+			return false;
+		}
 
-		// Push it on the queue
-		q.offer(new RoomNode(r, null));
+		if (!custom) {
+			graph.connect(r1, r2);
+			ds.union(r1, r2);
+			changed(r1, r2);
+		}
 
-		// Mark it as visited
-		r.visited = true;
+		++version;
+		solved = false;
+		return true;
+	}
 
-		// This will the node linking a room to the we came to it from 
-		RoomNode rn = null;
+	/**
+	 * 
+	 * Solves the last two rooms again after the walls changed, if the solver
+	 * can repair its previous search instead of starting over (see
+	 * LPAStarSolver)
+	 * 
+	 * @return True if the maze was solved again
+	 * 
+	 */
+	public boolean repair() {
+		if (!needsRepair()) {
+			return false;
+		}
 
-		// As long as we don't have a solution, and we still haven't visited all the possible paths
-		while (!q.isEmpty() && !pathFound) {
-			// Lets take our next room
-			rn = q.poll();
-			Room room = rn.getRoom();
+		solve(firstRoom, lastRoom);
+		return true;
+	}
 
-			// Now we need to know where we can go from this room that we haven't been to before
-			for (Integer p : room.paths) {
-				Room t = graph.get(p);
+	/**
+	 * 
+	 * Checks if the walls changed under a path the solver can repair, the
+	 * repair can then be run with repair, or in the background through begin,
+	 * watch, search and finish. A path found from several rooms to several
+	 * others (see solve(int[], int[])) is never repaired: it has to be
+	 * searched again from all of them.
+	 * 
+	 * @return True if the last two rooms should be solved again
+	 * 
+	 */
+	public boolean needsRepair() {
+		// Once the walls changed, the pair picked from several rooms may not be the closest one anymore
+		return solver instanceof LPAStarSolver && !solved && !picked && firstRoom != -1 && lastRoom != -1;
+	}
 
-				if (t.visited) {
-					continue;
-				}
+	/**
+	 * 
+	 * Tells the solver about a wall that changed, if it keeps its search
+	 * between edits
+	 * 
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * 
+	 */
+	private void changed(int r1, int r2) {
+		if (solver instanceof LPAStarSolver) {
+			((LPAStarSolver) solver).wallChanged(r1, r2);
+		}
+	}
 
-				// Mark current as visited now, not outside of the for loop
-				// because this way it is guaranteed that we can't add an element
-				// multiple times to the queue and it's a lot more efficent
-				t.visited = true;
+	/**
+	 * 
+	 * Getter for the version of the walls
+	 * 
+	 * @return A number that changes every time the walls change
+	 * 
+	 */
+	public long getVersion() {
+		return version;
+	}
 
-				// Enque children
-				q.offer(new RoomNode(t, rn));
+	/**
+	 * 
+	 * Setter for the seed of the random generator used to generate mazes
+	 * 
+	 * @param seed The seed (the same seed always generates the same mazes)
+	 * 
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		generator = new Random(seed);
+	}
 
-				// If we reached the LASTROOM, we'll need to stop
-				if (p == lastRoom) {
-					pathFound = true;
-					break;
-				}
-			}
-		}
+	/**
+	 * 
+	 * Saves the walls to a maze file (see MazeFile)
+	 * 
+	 * @param file The file to write
+	 * @throws IOException If the file can't be written
+	 * 
+	 */
+	public void save(Path file) throws IOException {
+		MazeFile.save(file, maze, seed);
+	}
 
-		// If a path was found, we'll need to retrace our steps
-		if (pathFound) {
-			// We'll start with the LASTROOM
-			path.add(lastRoom);
+	/**
+	 * 
+	 * Loads a maze from a maze file (see MazeFile)
+	 * 
+	 * @param file The file to read
+	 * @return A maze of the size of the file, with its walls
+	 * @throws IOException If the file can't be read or isn't a maze file
+	 * 
+	 */
+	public static Maze load(Path file) throws IOException {
+		MazeFile f = MazeFile.open(file);
 
-			// And using our auxiliary class RoomNode, we have the possibility to get the previous room
-			while (rn != null) {
-				path.add(rn.getRoom().getId());
-				rn = rn.getPrevious();
-			}
+		Maze m = new Maze(f.getWidth(), f.getHeight());
+		f.copyTo(m.maze);
+		m.seed = f.getSeed();
+		m.filled = true;
 
-			// At the end, the path is generated backwards, but it doesn't matter as it will be drawn as a 
-			// line with no distinction between the start and the end so there is absolutely no need to reverse it
-		}
+		// The graph will be built from the walls on the first solve
+		return m;
+	}
 
-		return pathFound;
+	/**
+	 * 
+	 * Getter for the last error met by solve
+	 * 
+	 * @return The error message, or null if the last solve went fine
+	 * 
+	 */
+	public String getError() {
+		return error;
 	}
 
 	/**
@@ -378,8 +710,34 @@ public class Maze {
 	 * 
 	 */
 	private void alert(String msg) {
-		// Pass this to the panel
-		panel.alert(msg);
+		error = msg;
+
+		// Pass this to the panel, if there is one
+		if (panel != null) {
+			panel.alert(msg);
+		}
+	}
+
+	/**
+	 * 
+	 * Getter for the first room of the last solve
+	 * 
+	 * @return The room the path starts from (-1 if none)
+	 * 
+	 */
+	public int getFirstRoom() {
+		return firstRoom;
+	}
+
+	/**
+	 * 
+	 * Getter for the last room of the last solve
+	 * 
+	 * @return The room the path ends at (-1 if none)
+	 * 
+	 */
+	public int getLastRoom() {
+		return lastRoom;
 	}
 
 	/**
@@ -406,13 +764,30 @@ public class Maze {
 
 	/**
 	 * 
-	 * Setter for the custom variable
+	 * Setter for the filled variable
+	 * 
+	 * @param f The new filled value (true once a progressive generation is
+	 *            complete)
+	 * 
+	 */
+	public void setFilled(boolean f) {
+		filled = f;
+	}
+
+	/**
+	 * 
+	 * Setter for the custom variable. Setting it tells the maze that its walls
+	 * were edited directly (not through addWall or removeWall), so the graph
+	 * will be rebuilt from the walls before the next solve.
 	 * 
 	 * @param c The new custom value
 	 * 
 	 */
 	public void setCustom(boolean c) {
 		custom = c;
+		if (c) {
+			++version;
+		}
 	}
 
 	/**
@@ -428,15 +803,55 @@ public class Maze {
 
 	/**
 	 * 
-	 * This method will toggle the solving algorithm. If the maze was solved, it
-	 * will resolve it again with the new algorithm
+	 * Getter for the solving algorithm
+	 * 
+	 * @return The solver used by solve
+	 * 
+	 */
+	public Solver getSolver() {
+		return solver;
+	}
+
+	/**
+	 * 
+	 * Setter for the solving algorithm
+	 * 
+	 * @param s The solver to use from now on
+	 * 
+	 */
+	public void setSolver(Solver s) {
+		solver = s;
+		solved = false;
+
+		// It missed the edits made while another solver was used
+		if (solver instanceof LPAStarSolver) {
+			((LPAStarSolver) solver).forget();
+		}
+	}
+
+	/**
+	 * 
+	 * This method will toggle the solving algorithm, going through each of
+	 * them in turn. If the maze was solved, it will resolve it again with the
+	 * new algorithm
 	 * 
 	 */
 	public void toggle() {
-		BFS = !BFS;
+		int next = 0;
+		for (int i = 0; i < solvers.length; ++i) {
+			if (solvers[i] == solver) {
+				next = (i + 1) % solvers.length;
+			}
+		}
+		solver = solvers[next];
+
+		// It missed the edits made while another solver was used
+		if (solver instanceof LPAStarSolver) {
+			((LPAStarSolver) solver).forget();
+		}
 
 		if (isSolved()) {
-			path.clear();
+			path = NO_PATH;
 			solved = false;
 			solve(firstRoom, lastRoom);
 		}
@@ -0,0 +1,505 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *
+ * This class is the command line entry point for batch jobs: it generates or
+ * loads mazes, solves random queries in each of them on several threads, and
+ * prints the throughput and latency percentiles. It never opens a window, so
+ * it can run on headless machines.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class MazeBatch {
+	// The exit codes
+	private static final int EXIT_OK = 0;
+	private static final int EXIT_USAGE = 1;
+	private static final int EXIT_IO = 2;
+
+	/**
+	 *
+	 * Runs a batch described by the command line arguments
+	 *
+	 * @param args See usage()
+	 *
+	 */
+	public static void main(String[] args) {
+		MazeMetrics.register();
+		System.exit(run(args));
+	}
+
+	/**
+	 *
+	 * Runs a batch described by the command line arguments
+	 *
+	 * @param args See usage()
+	 * @return The exit code
+	 *
+	 */
+	public static int run(String[] args) {
+		int width = 100;
+		int height = -1;
+		int mazes = 1;
+		int queries = 1000;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int edits = 0;
+		int sources = 0;
+		String solver = "bfs";
+		long seed = System.nanoTime();
+		boolean parallel = false;
+		boolean mapped = false;
+		boolean tiled = false;
+		long cache = 64L << 20;
+		String save = null;
+		List<String> files = new ArrayList<String>();
+
+		try {
+			for (int i = 0; i < args.length; ++i) {
+				String arg = args[i];
+				if (arg.equals("--parallel")) {
+					parallel = true;
+					continue;
+				}
+				if (arg.equals("--mapped")) {
+					mapped = true;
+					continue;
+				}
+				if (arg.equals("--metrics")) {
+					MazeMetrics.get().setEnabled(true);
+					continue;
+				}
+				if (arg.equals("--tiled")) {
+					tiled = true;
+					continue;
+				}
+				if (i + 1 == args.length) {
+					return usage("Missing value for " + arg);
+				}
+
+				String value = args[++i];
+				if (arg.equals("--width")) {
+					width = Integer.parseInt(value);
+				}
+				else if (arg.equals("--height")) {
+					height = Integer.parseInt(value);
+				}
+				else if (arg.equals("--mazes")) {
+					mazes = Integer.parseInt(value);
+				}
+				else if (arg.equals("--queries")) {
+					queries = Integer.parseInt(value);
+				}
+				else if (arg.equals("--sources")) {
+					sources = Integer.parseInt(value);
+				}
+				else if (arg.equals("--edits")) {
+					edits = Integer.parseInt(value);
+				}
+				else if (arg.equals("--threads")) {
+					threads = Integer.parseInt(value);
+				}
+				else if (arg.equals("--solver")) {
+					solver = value;
+				}
+				else if (arg.equals("--seed")) {
+					seed = Long.parseLong(value);
+				}
+				else if (arg.equals("--load")) {
+					files.add(value);
+				}
+				else if (arg.equals("--save")) {
+					save = value;
+				}
+				else if (arg.equals("--cache")) {
+					cache = Long.parseLong(value) << 20;
+				}
+				else {
+					return usage("Unknown option " + arg);
+				}
+			}
+		}
+		catch (NumberFormatException e) {
+			return usage("Not a number: " + e.getMessage());
+		}
+
+		if (height == -1) {
+			height = width;
+		}
+		if (width < 1 || height < 1 || mazes < 0 || queries < 0 || threads < 1 || cache < 0 || edits < 0 || sources < 0) {
+			return usage("Sizes and counts must be positive");
+		}
+
+		if (edits > 0 && mapped) {
+			return usage("Mapped mazes can't be edited");
+		}
+		if (tiled) {
+			return runTiled(width, height, mazes, queries, seed, save, files, cache);
+		}
+
+		MazeEngine.SolverFactory factory = MazeEngine.factory(solver);
+		if (factory == null) {
+			return usage("Unknown solver " + solver);
+		}
+
+		Random random = new Random(seed);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ForkJoinPool generators = parallel ? new ForkJoinPool(threads) : null;
+
+		long[] latencies = new long[0];
+		int[] statuses = new int[3];
+		long solving = 0;
+
+		try {
+			int count = files.isEmpty() ? mazes : files.size();
+			for (int m = 0; m < count; ++m) {
+				// Generate or load the maze
+				long begin = System.nanoTime();
+				Grid graph;
+				Maze maze = null;
+				if (files.isEmpty()) {
+					maze = new Maze(width, height);
+					maze.setSeed(random.nextLong());
+					if (generators != null) {
+						maze.generate(generators);
+					}
+					else {
+						maze.generate();
+					}
+					if (save != null) {
+						maze.save(Paths.get(count == 1 ? save : save + "." + m));
+					}
+					graph = maze.getGraph();
+				}
+				else if (mapped) {
+					// Solve straight over the mapped file, without building a graph
+					graph = MazeFile.open(Paths.get(files.get(m)));
+				}
+				else {
+					maze = Maze.load(Paths.get(files.get(m)));
+					graph = maze.getGraph();
+				}
+				long built = System.nanoTime() - begin;
+
+				// Solve random queries, from a few random rooms if asked to
+				int[] picks = new int[sources];
+				for (int k = 0; k < sources; ++k) {
+					picks[k] = random.nextInt(graph.size());
+				}
+				int[] starts = new int[queries];
+				int[] ends = new int[queries];
+				for (int q = 0; q < queries; ++q) {
+					starts[q] = sources > 0 ? picks[random.nextInt(sources)] : random.nextInt(graph.size());
+					ends[q] = random.nextInt(graph.size());
+				}
+
+				begin = System.nanoTime();
+				MazeEngine engine = new MazeEngine(graph, factory);
+				MazeEngine.Result[] results;
+				try {
+					results = engine.solveAll(starts, ends, pool);
+				}
+				finally {
+					try {
+						engine.close();
+					}
+					catch (IOException e) {
+						// The scratch files are deleted on exit anyway
+					}
+				}
+				long elapsed = System.nanoTime() - begin;
+				solving += elapsed;
+
+				int offset = latencies.length;
+				latencies = Arrays.copyOf(latencies, offset + results.length);
+				for (int q = 0; q < results.length; ++q) {
+					latencies[offset + q] = results[q].nanos;
+					++statuses[results[q].status];
+				}
+
+				System.out.printf("maze %d: %dx%d built in %.1f ms, %d queries in %.1f ms%n", m, graph.getWidth(), graph.getHeight(), built / 1e6, queries, elapsed / 1e6);
+
+				if (edits > 0) {
+					repairs(maze, edits, random);
+				}
+			}
+		}
+		catch (IOException e) {
+			System.err.println("Could not load or save the maze: " + e.getMessage());
+			return EXIT_IO;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return EXIT_IO;
+		}
+		finally {
+			pool.shutdown();
+			if (generators != null) {
+				generators.shutdown();
+			}
+		}
+
+		report(solver, threads, latencies, statuses, solving);
+		if (MazeMetrics.get().isEnabled()) {
+			metrics();
+		}
+		return EXIT_OK;
+	}
+
+	/**
+	 * Prints what the metrics collected over the whole batch
+	 */
+	private static void metrics() {
+		MazeMetrics m = MazeMetrics.get();
+		System.out.printf("metrics: %d generations (median under %d us), %d solves (median under %d us, 99%% under %d us)%n", m.getGenerations(), m.getGenerateP50Micros(), m.getSolves(), m.getSolveP50Micros(), m.getSolveP99Micros());
+		System.out.printf("metrics: %d rooms expanded, %d on paths, largest frontier %d rooms, %.1f MB allocated%n", m.getRoomsExpanded(), m.getPathRooms(), m.getFrontierPeak(), m.getAllocatedBytes() / 1048576.0);
+	}
+
+	/**
+	 *
+	 * Keeps a random pair of rooms solved while random walls are toggled, and
+	 * compares the work of the LPA* repairs with a BFS from scratch
+	 *
+	 * @param maze The maze to edit
+	 * @param edits How many walls to toggle
+	 * @param random Picks the rooms and the walls
+	 *
+	 */
+	private static void repairs(Maze maze, int edits, Random random) {
+		int n = maze.width * maze.height;
+		LPAStarSolver lpa = new LPAStarSolver();
+		BFSSolver bfs = new BFSSolver();
+		maze.setSolver(lpa);
+
+		int start = random.nextInt(n);
+		int end = random.nextInt(n);
+		maze.solve(start, end);
+
+		long repaired = 0;
+		long updated = 0;
+		long searched = 0;
+		long repairNanos = 0;
+		long searchNanos = 0;
+		int done = 0;
+		while (done < edits) {
+			// Toggle a random wall, on the top or on the left of a room
+			int r1 = random.nextInt(n);
+			int r2 = random.nextBoolean() ? r1 - 1 : r1 - maze.width;
+			if (!maze.removeWall(r1, r2) && !maze.addWall(r1, r2)) {
+				continue;
+			}
+			++done;
+
+			long begin = System.nanoTime();
+			maze.repair();
+			repairNanos += System.nanoTime() - begin;
+
+			// The maze doesn't search when it knows both rooms were split apart
+			if (maze.getError() == null) {
+				repaired += lpa.getExpanded();
+				updated += lpa.getUpdated();
+			}
+
+			begin = System.nanoTime();
+			bfs.solve(maze.getGraph(), start, end);
+			searchNanos += System.nanoTime() - begin;
+			searched += bfs.getExpanded();
+		}
+
+		System.out.printf("  %d edits: a repair expanded %d rooms (%d updated) in %.1f us, a BFS expanded %d rooms in %.1f us (on average)%n", edits, repaired / edits,
+				updated / edits, repairNanos / 1e3 / edits, searched / edits, searchNanos / 1e3 / edits);
+	}
+
+	/**
+	 *
+	 * Runs a batch over tiled mazes: generated mazes are streamed to disk row
+	 * by row, and queries are solved one at a time by the Tiled BFS solver, so
+	 * memory stays bounded whatever the size of the mazes.
+	 *
+	 * @param width The width of the generated mazes
+	 * @param height The height of the generated mazes
+	 * @param mazes How many mazes to generate
+	 * @param queries Random queries per maze
+	 * @param seed Seed for the mazes and the queries
+	 * @param save Where to keep the generated mazes (null for temporary files)
+	 * @param files The tiled files to load instead of generating
+	 * @param cache How much memory each tile cache can take
+	 * @return The exit code
+	 *
+	 */
+	private static int runTiled(int width, int height, int mazes, int queries, long seed, String save, List<String> files, long cache) {
+		Random random = new Random(seed);
+		final TiledBFSSolver solver = new TiledBFSSolver(cache);
+
+		long[] latencies = new long[0];
+		int[] statuses = new int[3];
+		long solving = 0;
+
+		try {
+			int count = files.isEmpty() ? mazes : files.size();
+			for (int m = 0; m < count; ++m) {
+				// Stream or open the maze
+				long begin = System.nanoTime();
+				Path path;
+				if (files.isEmpty()) {
+					if (save != null) {
+						path = Paths.get(count == 1 ? save : save + "." + m);
+					}
+					else {
+						path = Files.createTempFile("maze", ".tiles");
+						path.toFile().deleteOnExit();
+					}
+
+					TiledMaze.Writer writer = new TiledMaze.Writer(path, width, height, TiledMaze.DEFAULT_TILE, 0);
+					try {
+						new EllerGenerator(width, random.nextLong()).generate(height, writer);
+					}
+					finally {
+						writer.close();
+					}
+				}
+				else {
+					path = Paths.get(files.get(m));
+				}
+
+				TiledMaze maze = new TiledMaze(path, cache);
+				long built = System.nanoTime() - begin;
+
+				try {
+					// The engine isn't closed, the solver belongs to the batch (and is closed at the end)
+					MazeEngine engine = new MazeEngine(maze, new MazeEngine.SolverFactory() {
+						public Solver create() {
+							return solver;
+						}
+					});
+
+					int offset = latencies.length;
+					latencies = Arrays.copyOf(latencies, offset + queries);
+
+					begin = System.nanoTime();
+					for (int q = 0; q < queries; ++q) {
+						MazeEngine.Result result = engine.solve(random.nextInt(maze.size()), random.nextInt(maze.size()));
+						latencies[offset + q] = result.nanos;
+						++statuses[result.status];
+					}
+					long elapsed = System.nanoTime() - begin;
+					solving += elapsed;
+
+					TileCache walls = maze.getCache();
+					System.out.printf("maze %d: %dx%d built in %.1f ms, %d queries in %.1f ms%n", m, maze.getWidth(), maze.getHeight(), built / 1e6, queries,
+							elapsed / 1e6);
+					System.out.printf("  wall tiles: %d hits, %d misses, %.1f MB read%n", walls.getHits(), walls.getMisses(), walls.getBytesRead() / 1e6);
+					if (solver.getCache() != null) {
+						TileCache scratch = solver.getCache();
+						System.out.printf("  visited tiles: %d hits, %d misses, %.1f MB read, %.1f MB written%n", scratch.getHits(), scratch.getMisses(),
+								scratch.getBytesRead() / 1e6, scratch.getBytesWritten() / 1e6);
+						scratch.resetStats();
+					}
+				}
+				finally {
+					maze.close();
+				}
+			}
+		}
+		catch (IOException e) {
+			System.err.println("Could not load or save the maze: " + e.getMessage());
+			return EXIT_IO;
+		}
+		finally {
+			try {
+				solver.close();
+			}
+			catch (IOException e) {
+				// The scratch file is deleted on exit anyway
+			}
+		}
+
+		report("tiled", 1, latencies, statuses, solving);
+		return EXIT_OK;
+	}
+
+	/**
+	 *
+	 * Prints the totals of a batch
+	 *
+	 * @param solver The name of the solver
+	 * @param threads How many threads solved
+	 * @param latencies The time taken by each query (in nanoseconds)
+	 * @param statuses How many queries ended with each status
+	 * @param solving The total time spent solving (in nanoseconds)
+	 *
+	 */
+	private static void report(String solver, int threads, long[] latencies, int[] statuses, long solving) {
+		Arrays.sort(latencies);
+		System.out.printf("solver %s, %d threads: %d queries (%d ok, %d invalid, %d no path)%n", solver, threads, latencies.length, statuses[MazeEngine.OK],
+				statuses[MazeEngine.INVALID_ROOM], statuses[MazeEngine.NO_PATH]);
+		if (latencies.length > 0) {
+			System.out.printf("throughput %.0f queries/s%n", latencies.length * 1e9 / solving);
+			System.out.printf("latency p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us%n", percentile(latencies, 50) / 1e3, percentile(latencies, 90) / 1e3,
+					percentile(latencies, 99) / 1e3, latencies[latencies.length - 1] / 1e3);
+		}
+	}
+
+	/**
+	 *
+	 * Picks a percentile out of sorted values (nearest rank)
+	 *
+	 * @param sorted The values, in increasing order
+	 * @param p The percentile (0 to 100)
+	 * @return The value at that percentile
+	 *
+	 */
+	private static long percentile(long[] sorted, int p) {
+		int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 *
+	 * Prints how to use the command line
+	 *
+	 * @param problem What was wrong with the arguments
+	 * @return The exit code for bad arguments
+	 *
+	 */
+	private static int usage(String problem) {
+		System.err.println(problem);
+		System.err.println("Options:");
+		System.err.println("  --width W      Width of the mazes (default 100)");
+		System.err.println("  --height H     Height of the mazes (default: the width)");
+		System.err.println("  --mazes M      How many mazes to generate (default 1)");
+		System.err.println("  --load FILE    Load a maze file (a tiled file with --tiled) instead of generating (repeatable)");
+		System.err.println("  --mapped       Solve over the mapped maze files instead of building graphs");
+		System.err.println("  --save FILE    Save the generated mazes (FILE.0, FILE.1... if several)");
+		System.err.println("  --tiled        Stream the mazes to tiled files and solve them with bounded memory");
+		System.err.println("  --cache MB     Memory for each tile cache of --tiled (default 64)");
+		System.err.println("  --parallel     Generate with all the threads");
+		System.err.println("  --queries Q    Random queries per maze (default 1000)");
+		System.err.println("  --threads T    Solving threads (default: one per core)");
+		System.err.println("  --solver S     dfs, bfs, bidi, astar, jps, cached, lca or tiled (default bfs)");
+		System.err.println("  --sources K    Start the queries from K random rooms only (default: any room)");
+		System.err.println("  --edits E      Toggle E random walls per maze, comparing LPA* repairs with BFS");
+		System.err.println("  --seed S       Seed for the mazes and the queries");
+		System.err.println("  --metrics      Collect the solve and generation metrics, and print them at the end");
+		return EXIT_USAGE;
+	}
+}
@@ -0,0 +1,342 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This class solves queries over a maze without any user interface: results
+ * come back as status codes instead of alert boxes, and batches of queries are
+ * spread over a thread pool. Each thread gets its own solver, and they all
+ * share the same (read only) graph.
+ *
+ * Solvers that hold resources (the scratch file of a TiledBFSSolver) are
+ * Closeable: the engine closes the ones its factory created when it is
+ * closed itself, so it should be closed once it is no longer needed.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class MazeEngine implements Closeable {
+	// The status of a query
+	public static final int OK = 0;
+	public static final int INVALID_ROOM = 1;
+	public static final int NO_PATH = 2;
+
+	// How many queries a single task of a batch handles
+	private static final int CHUNK = 256;
+
+	/**
+	 * The outcome of a single query
+	 */
+	public static class Result {
+		// One of OK, INVALID_ROOM or NO_PATH
+		public final int status;
+
+		// The rooms on the path, from start to end (null unless the status is OK)
+		public final int[] path;
+
+		// How many rooms the solver expanded, and how long the query took
+		public final int expanded;
+		public final long nanos;
+
+		/**
+		 *
+		 * A result is created once a query is over
+		 *
+		 * @param s The status
+		 * @param p The path
+		 * @param e The expanded rooms
+		 * @param n The time taken (in nanoseconds)
+		 *
+		 */
+		public Result(int s, int[] p, int e, long n) {
+			status = s;
+			path = p;
+			expanded = e;
+			nanos = n;
+		}
+	}
+
+	/**
+	 * A factory creates a new solver for each thread
+	 */
+	public interface SolverFactory {
+
+		/**
+		 *
+		 * Creates a solver
+		 *
+		 * @return A new solver
+		 *
+		 */
+		Solver create();
+	}
+
+	// The connexity of the rooms
+	private final Grid graph;
+
+	// The solver of each thread, and all the solvers created so far (to close them)
+	private final ThreadLocal<Solver> solvers;
+	private final List<Solver> created = new ArrayList<Solver>();
+
+	// The solver of each thread for the queries from several rooms (only a BFS can search from several rooms at once)
+	private final ThreadLocal<BFSSolver> nearest = new ThreadLocal<BFSSolver>() {
+		protected BFSSolver initialValue() {
+			return new BFSSolver();
+		}
+	};
+
+	/**
+	 *
+	 * An engine is created for a graph and a kind of solver
+	 *
+	 * @param g The grid to solve in
+	 * @param factory Creates the solver of each thread
+	 *
+	 */
+	public MazeEngine(Grid g, final SolverFactory factory) {
+		graph = g;
+		solvers = new ThreadLocal<Solver>() {
+			protected Solver initialValue() {
+				Solver solver = factory.create();
+				synchronized (created) {
+					created.add(solver);
+				}
+				return solver;
+			}
+		};
+	}
+
+	/**
+	 *
+	 * Closes the solvers created by the factory that hold resources. The
+	 * solvers must not be in use anymore: call it once the queries are over.
+	 *
+	 * @throws IOException If a solver couldn't be closed (the others are
+	 *             still closed)
+	 *
+	 */
+	public void close() throws IOException {
+		// Closing twice does nothing, and a solver used again after that opens its resources again
+		List<Solver> closing;
+		synchronized (created) {
+			closing = new ArrayList<Solver>(created);
+		}
+
+		IOException failure = null;
+		for (Solver solver : closing) {
+			if (!(solver instanceof Closeable)) {
+				continue;
+			}
+			try {
+				((Closeable) solver).close();
+			}
+			catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 *
+	 * Solves a single query in the calling thread
+	 *
+	 * @param start The room to start from
+	 * @param end The room to reach
+	 * @return The result of the query
+	 *
+	 */
+	public Result solve(int start, int end) {
+		long begin = System.nanoTime();
+
+		if (start < 0 || start >= graph.size() || end < 0 || end >= graph.size()) {
+			return new Result(INVALID_ROOM, null, 0, System.nanoTime() - begin);
+		}
+
+		Solver solver = solvers.get();
+		int[] path = MazeMetrics.solve(solver, graph, start, end, 0);
+
+		return new Result(path == null ? NO_PATH : OK, path, solver.getExpanded(), System.nanoTime() - begin);
+	}
+
+	/**
+	 *
+	 * Solves a query from several rooms to several others in the calling
+	 * thread, with a single BFS whatever the solver of the engine. The BFS
+	 * keeps a few ints per room in memory, so it can't search a TiledMaze
+	 * (whose rooms don't fit in memory).
+	 *
+	 * @param starts The rooms to start from
+	 * @param ends The rooms to reach
+	 * @return The result of the query, its path goes from the first room it
+	 *         starts from to the closest room to reach
+	 * @throws UnsupportedOperationException If the grid is a TiledMaze
+	 *
+	 */
+	public Result solve(int[] starts, int[] ends) {
+		if (graph instanceof TiledMaze) {
+			throw new UnsupportedOperationException("A tiled maze can't be searched from several rooms at once");
+		}
+
+		long begin = System.nanoTime();
+
+		if (starts.length == 0 || ends.length == 0 || !inside(starts) || !inside(ends)) {
+			return new Result(INVALID_ROOM, null, 0, System.nanoTime() - begin);
+		}
+
+		BFSSolver solver = nearest.get();
+		int[] path = MazeMetrics.solve(solver, graph, starts, ends, 0);
+
+		return new Result(path == null ? NO_PATH : OK, path, solver.getExpanded(), System.nanoTime() - begin);
+	}
+
+	/**
+	 *
+	 * Solves a batch of queries in a thread pool
+	 *
+	 * @param starts The room to start from for each query
+	 * @param ends The room to reach for each query
+	 * @param pool The threads to solve in
+	 * @return The result of each query, in the same order
+	 * @throws InterruptedException If the calling thread was interrupted
+	 *             while waiting
+	 *
+	 */
+	public Result[] solveAll(final int[] starts, final int[] ends, ExecutorService pool) throws InterruptedException {
+		final Result[] results = new Result[starts.length];
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < starts.length; i += CHUNK) {
+			final int from = i;
+			final int to = Math.min(i + CHUNK, starts.length);
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					for (int q = from; q < to; ++q) {
+						results[q] = solve(starts[q], ends[q]);
+					}
+					return null;
+				}
+			});
+		}
+
+		for (Future<Void> f : pool.invokeAll(tasks)) {
+			try {
+				f.get();
+			}
+			catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 *
+	 * Finds a kind of solver by its short name
+	 *
+	 * @param name One of dfs, bfs, bidi, astar, jps, cached, lca or tiled
+	 *            (each tiled solver keeps a scratch file open until the
+	 *            engine is closed, and the lca solvers of a factory share
+	 *            their tables)
+	 * @return A factory for that solver, or null if the name is unknown
+	 *
+	 */
+	public static SolverFactory factory(String name) {
+		if (name.equals("dfs")) {
+			return new SolverFactory() {
+				public Solver create() {
+					return new DFSSolver();
+				}
+			};
+		}
+		if (name.equals("bfs")) {
+			return new SolverFactory() {
+				public Solver create() {
+					return new BFSSolver();
+				}
+			};
+		}
+		if (name.equals("bidi")) {
+			return new SolverFactory() {
+				public Solver create() {
+					return new BidirectionalBFSSolver();
+				}
+			};
+		}
+		if (name.equals("astar")) {
+			return new SolverFactory() {
+				public Solver create() {
+					return new AStarSolver();
+				}
+			};
+		}
+		if (name.equals("jps")) {
+			return new SolverFactory() {
+				public Solver create() {
+					return new JPSSolver();
+				}
+			};
+		}
+		if (name.equals("cached")) {
+			return new SolverFactory() {
+				public Solver create() {
+					return new BFSTreeCache();
+				}
+			};
+		}
+		if (name.equals("lca")) {
+			// The solvers of every thread read the same tables
+			final LCASolver.Shared tables = new LCASolver.Shared();
+			return new SolverFactory() {
+				public Solver create() {
+					return new LCASolver(tables);
+				}
+			};
+		}
+		if (name.equals("tiled")) {
+			return new SolverFactory() {
+				public Solver create() {
+					return new TiledBFSSolver();
+				}
+			};
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * Checks that rooms are in the graph
+	 *
+	 * @param rooms The rooms
+	 * @return True if every room is
+	 *
+	 */
+	private boolean inside(int[] rooms) {
+		for (int room : rooms) {
+			if (room < 0 || room >= graph.size()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
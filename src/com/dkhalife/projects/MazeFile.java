@@ -0,0 +1,316 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads and writes mazes in a compact binary file, through a
+ * memory mapping: opening a maze is a single map call whatever its size, and
+ * the solvers can search the mapped file directly since it is a Grid.
+ *
+ * The file is little-endian. It starts with a 32 byte header:
+ *
+ * - the magic number "MAZE" (int), the format version (int)
+ *
+ * - the width and the height of the maze (ints)
+ *
+ * - the seed the maze was generated with, 0 if unknown (long)
+ *
+ * - a reserved long, always 0
+ *
+ * The walls follow as 64-bit words, two bits per room, in the layout of the
+ * WallSet: the top wall of room r is bit 2 * r, and its left wall is bit
+ * 2 * r + 1.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class MazeFile implements Grid {
+	// "MAZE" in ASCII
+	public static final int MAGIC = 0x4D415A45;
+
+	// The version written by this class
+	public static final int VERSION = 1;
+
+	// The size of the header, in bytes (a multiple of 8 so that the walls are aligned)
+	public static final int HEADER = 32;
+
+	// The maze described by the header
+	private int version;
+	private int width;
+	private int height;
+	private long seed;
+
+	// The mapped file, and the walls inside it
+	private MappedByteBuffer buffer;
+	private LongBuffer walls;
+
+	/**
+	 *
+	 * A maze file is created over a mapping that holds a valid header
+	 *
+	 * @param b The mapped file
+	 * @throws IOException If the header is not a maze header
+	 *
+	 */
+	private MazeFile(MappedByteBuffer b) throws IOException {
+		buffer = b;
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a maze file");
+		}
+
+		version = buffer.getInt(4);
+		if (version > VERSION) {
+			throw new IOException("Unsupported maze file version " + version);
+		}
+
+		width = buffer.getInt(8);
+		height = buffer.getInt(12);
+		seed = buffer.getLong(16);
+		if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IOException("Invalid maze size " + width + "x" + height);
+		}
+		if (buffer.capacity() < HEADER + 8L * words(width, height)) {
+			throw new IOException("The maze file is truncated");
+		}
+
+		buffer.position(HEADER);
+		walls = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		buffer.position(0);
+	}
+
+	/**
+	 *
+	 * Maps a maze file for reading
+	 *
+	 * @param path The file
+	 * @return The maze file
+	 * @throws IOException If the file can't be read or isn't a maze file
+	 *
+	 */
+	public static MazeFile open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			// The mapping stays valid once the channel is closed
+			return new MazeFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 *
+	 * Writes a maze file through a mapping
+	 *
+	 * @param path The file (replaced if it exists)
+	 * @param maze The walls to write
+	 * @param seed The seed the maze was generated with, 0 if unknown
+	 * @throws IOException If the file can't be written
+	 *
+	 */
+	public static void save(Path path, WallSet maze, long seed) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + 8L * maze.words());
+			b.order(ByteOrder.LITTLE_ENDIAN);
+			header(b, maze.getWidth(), maze.getHeight(), seed);
+
+			b.position(HEADER);
+			maze.write(b.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+			b.force();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 *
+	 * Writes a header to a channel, so that the walls can be streamed after
+	 * it (with a WallStreamWriter for instance)
+	 *
+	 * @param channel The channel, at the start of the file
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 * @param seed The seed the maze was generated with, 0 if unknown
+	 * @throws IOException If the channel failed
+	 *
+	 */
+	public static void writeHeader(WritableByteChannel channel, int width, int height, long seed) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		header(b, width, height, seed);
+		while (b.hasRemaining()) {
+			channel.write(b);
+		}
+	}
+
+	/**
+	 *
+	 * Copies the walls of the file into a wall set of the same size
+	 *
+	 * @param maze The wall set
+	 *
+	 */
+	public void copyTo(WallSet maze) {
+		if (maze.getWidth() != width || maze.getHeight() != height) {
+			throw new IllegalArgumentException("The maze is " + maze.getWidth() + "x" + maze.getHeight() + ", the file is " + width + "x" + height);
+		}
+		maze.read(walls.duplicate());
+	}
+
+	/**
+	 *
+	 * Checks if a room has a wall on its top side
+	 *
+	 * @param r The room
+	 * @return True if there is a wall between the room and the one above it
+	 *
+	 */
+	public boolean hasTop(int r) {
+		return bit(2L * r);
+	}
+
+	/**
+	 *
+	 * Checks if a room has a wall on its left side
+	 *
+	 * @param r The room
+	 * @return True if there is a wall between the room and the one to its left
+	 *
+	 */
+	public boolean hasLeft(int r) {
+		return bit(2L * r + 1);
+	}
+
+	public int getPaths(int r) {
+		int row = r / width;
+		int col = r - row * width;
+
+		// A room leads wherever its own walls and its neighbors' walls don't block it
+		int paths = 0;
+		if (row > 0 && !bit(2L * r)) {
+			paths |= Graph.UP;
+		}
+		if (row < height - 1 && !bit(2L * (r + width))) {
+			paths |= Graph.DOWN;
+		}
+		if (col > 0 && !bit(2L * r + 1)) {
+			paths |= Graph.LEFT;
+		}
+		if (col < width - 1 && !bit(2L * (r + 1) + 1)) {
+			paths |= Graph.RIGHT;
+		}
+
+		return paths;
+	}
+
+	public int neighbor(int r, int dir) {
+		switch (dir) {
+			case Graph.UP:
+				return r - width;
+			case Graph.DOWN:
+				return r + width;
+			case Graph.LEFT:
+				return r - 1;
+			default:
+				return r + 1;
+		}
+	}
+
+	public int size() {
+		return width * height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 *
+	 * Getter for the seed
+	 *
+	 * @return The seed the maze was generated with, 0 if unknown
+	 *
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 *
+	 * Getter for the format version
+	 *
+	 * @return The version the file was written with
+	 *
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 *
+	 * Reads one bit of the walls
+	 *
+	 * @param b The bit index
+	 * @return True if the bit is set
+	 *
+	 */
+	private boolean bit(long b) {
+		return (walls.get((int) (b >>> 6)) & (1L << b)) != 0;
+	}
+
+	/**
+	 *
+	 * Fills a header
+	 *
+	 * @param b The buffer, at the start of the file
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 * @param seed The seed the maze was generated with
+	 *
+	 */
+	private static void header(ByteBuffer b, int width, int height, long seed) {
+		b.putInt(0, MAGIC);
+		b.putInt(4, VERSION);
+		b.putInt(8, width);
+		b.putInt(12, height);
+		b.putLong(16, seed);
+		b.putLong(24, 0L);
+	}
+
+	/**
+	 *
+	 * Computes the size of the walls of a maze
+	 *
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 * @return How many 64-bit words the walls take
+	 *
+	 */
+	private static long words(int width, int height) {
+		return ((long) width * height * 2 + 63) >>> 6;
+	}
+}
@@ -0,0 +1,480 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class instruments the solves and generations. Each one can be seen two
+ * ways, both of which can be switched on while the program runs:
+ *
+ * - A Flight Recorder event (SolveEvent, GenerateEvent), committed when a
+ * recording is started (jcmd PID JFR.start, or -XX:StartFlightRecording)
+ *
+ * - Counters and latency histograms kept here, published through JMX under
+ * NAME once register is called, and collected when the Enabled attribute is
+ * set (or the program was started with -Dmaze.metrics=true)
+ *
+ * When neither is on, a search costs one extra check and nothing is measured:
+ * the solvers themselves are never slowed down, they only keep the counts
+ * they already had (see Solver.getExpanded and Solver.getFrontier).
+ *
+ * @author Dany Khalife
+ *
+ */
+public class MazeMetrics implements MazeMetricsMBean {
+	// The name the metrics are registered under
+	public static final String NAME = "com.dkhalife.projects:type=MazeMetrics";
+
+	// The metrics of the program
+	private static final MazeMetrics metrics = new MazeMetrics();
+
+	// Tells how much memory a thread allocated, null if the JVM can't
+	private static final com.sun.management.ThreadMXBean threads = allocationCounter();
+
+	// Whether the counters and histograms are collected
+	private volatile boolean enabled = Boolean.getBoolean("maze.metrics");
+
+	// The counters
+	private final LongAdder solves = new LongAdder();
+	private final LongAdder expanded = new LongAdder();
+	private final LongAdder reads = new LongAdder();
+	private final LongAdder pathRooms = new LongAdder();
+	private final LongAdder allocated = new LongAdder();
+	private final LongAdder graphBuilds = new LongAdder();
+	private final LongAdder generations = new LongAdder();
+	private final LongAccumulator frontier = new LongAccumulator(new LongBinaryOperator() {
+		public long applyAsLong(long a, long b) {
+			return Math.max(a, b);
+		}
+	}, 0);
+
+	// The durations
+	private final Histogram solveTimes = new Histogram();
+	private final Histogram graphTimes = new Histogram();
+	private final Histogram generateTimes = new Histogram();
+
+	/**
+	 * The metrics are only created once, see get
+	 */
+	private MazeMetrics() {
+	}
+
+	/**
+	 *
+	 * Getter for the metrics of the program
+	 *
+	 * @return The metrics
+	 *
+	 */
+	public static MazeMetrics get() {
+		return metrics;
+	}
+
+	/**
+	 * Publishes the metrics with the platform MBean server, so they can be read
+	 * and switched on through JMX. Registering them again does nothing.
+	 */
+	public static void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(NAME));
+		}
+		catch (InstanceAlreadyExistsException e) {
+			// They were registered already
+		}
+		catch (JMException e) {
+			throw new IllegalStateException("The maze metrics couldn't be registered", e);
+		}
+	}
+
+	/**
+	 *
+	 * Checks if a search would be measured, so the caller can watch the grid it
+	 * searches (see Maze.search)
+	 *
+	 * @return True if the metrics are enabled or solves are being recorded
+	 *
+	 */
+	static boolean isActive() {
+		return metrics.enabled || new SolveEvent().isEnabled();
+	}
+
+	/**
+	 *
+	 * Searches a grid, and measures the search if the metrics are enabled or
+	 * solves are being recorded. The paths read are only counted when the grid
+	 * is watched.
+	 *
+	 * @param solver The solver to search with
+	 * @param grid The grid to search
+	 * @param start The first room
+	 * @param end The last room
+	 * @param graphNanos The time spent building the graph just before the
+	 *            search, 0 if it wasn't rebuilt
+	 * @return The rooms on the path, or null if there is none
+	 *
+	 */
+	static int[] solve(Solver solver, Grid grid, int start, int end, long graphNanos) {
+		SolveEvent event = new SolveEvent();
+		if (!metrics.enabled && !event.isEnabled()) {
+			return solver.solve(grid, start, end);
+		}
+		return measure(event, solver, grid, start, end, null, null, graphNanos);
+	}
+
+	/**
+	 *
+	 * Searches a grid from several rooms to several others (see
+	 * BFSSolver.solve(Grid, int[], int[])), and measures the search like any
+	 * other. The event tells the pair of rooms the path joins.
+	 *
+	 * @param solver The solver to search with
+	 * @param grid The grid to search
+	 * @param starts The first rooms
+	 * @param ends The last rooms
+	 * @param graphNanos The time spent building the graph just before the
+	 *            search, 0 if it wasn't rebuilt
+	 * @return The rooms on the path, or null if there is none
+	 *
+	 */
+	static int[] solve(BFSSolver solver, Grid grid, int[] starts, int[] ends, long graphNanos) {
+		SolveEvent event = new SolveEvent();
+		if (!metrics.enabled && !event.isEnabled()) {
+			return solver.solve(grid, starts, ends);
+		}
+		return measure(event, solver, grid, -1, -1, starts, ends, graphNanos);
+	}
+
+	/**
+	 *
+	 * Runs a search and measures it
+	 *
+	 * @param event The event of the search
+	 * @param solver The solver to search with (a BFSSolver if starts isn't
+	 *            null)
+	 * @param grid The grid to search
+	 * @param start The first room, when searching from a single room
+	 * @param end The last room, when searching to a single room
+	 * @param starts The first rooms, or null to search from start to end
+	 * @param ends The last rooms, or null to search from start to end
+	 * @param graphNanos The time spent building the graph just before the
+	 *            search, 0 if it wasn't rebuilt
+	 * @return The rooms on the path, or null if there is none
+	 *
+	 */
+	private static int[] measure(SolveEvent event, Solver solver, Grid grid, int start, int end, int[] starts, int[] ends, long graphNanos) {
+		WatchedGrid watched = grid instanceof WatchedGrid ? (WatchedGrid) grid : null;
+		long read = watched == null ? -1 : watched.getReads();
+		long bytes = allocated();
+
+		event.begin();
+		long begin = System.nanoTime();
+		int[] path = starts == null ? solver.solve(grid, start, end) : ((BFSSolver) solver).solve(grid, starts, ends);
+		long nanos = System.nanoTime() - begin;
+		event.end();
+
+		if (watched != null) {
+			read = watched.getReads() - read;
+		}
+		if (bytes >= 0) {
+			bytes = allocated() - bytes;
+		}
+		int length = path == null ? 0 : path.length;
+
+		if (metrics.enabled) {
+			metrics.solves.increment();
+			metrics.expanded.add(solver.getExpanded());
+			metrics.pathRooms.add(length);
+			metrics.frontier.accumulate(solver.getFrontier());
+			metrics.solveTimes.record(nanos);
+			if (read >= 0) {
+				metrics.reads.add(read);
+			}
+			if (bytes >= 0) {
+				metrics.allocated.add(bytes);
+			}
+			if (graphNanos > 0) {
+				metrics.graphBuilds.increment();
+				metrics.graphTimes.record(graphNanos);
+			}
+		}
+
+		if (event.shouldCommit()) {
+			event.solver = solver.getName();
+			event.width = grid.getWidth();
+			event.height = grid.getHeight();
+			if (starts == null) {
+				event.start = start;
+				event.end = end;
+				event.sources = 1;
+				event.targets = 1;
+			}
+			else {
+				// The pair the path joins, if there is one
+				event.start = path == null ? -1 : path[0];
+				event.end = path == null ? -1 : path[length - 1];
+				event.sources = starts.length;
+				event.targets = ends.length;
+			}
+			event.expanded = solver.getExpanded();
+			event.frontier = solver.getFrontier();
+			event.pathLength = length;
+			event.reads = read;
+			event.graphBuild = graphNanos;
+			event.allocated = bytes;
+			event.commit();
+		}
+
+		return path;
+	}
+
+	/**
+	 *
+	 * Measures a maze that was just generated. The event must have been begun
+	 * when the generation started.
+	 *
+	 * @param event The event of the generation
+	 * @param method How the maze was generated
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 * @param walls How many walls were kept
+	 * @param nanos How long the generation took
+	 * @param bytes How much memory it allocated, -1 if unknown
+	 *
+	 */
+	static void generated(GenerateEvent event, String method, int width, int height, long walls, long nanos, long bytes) {
+		if (metrics.enabled) {
+			metrics.generations.increment();
+			metrics.generateTimes.record(nanos);
+			if (bytes >= 0) {
+				metrics.allocated.add(bytes);
+			}
+		}
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.method = method;
+			event.width = width;
+			event.height = height;
+			event.walls = walls;
+			event.allocated = bytes;
+			event.commit();
+		}
+	}
+
+	/**
+	 *
+	 * Getter for the memory the current thread allocated since it started
+	 *
+	 * @return The bytes allocated, or -1 if the JVM can't tell
+	 *
+	 */
+	@SuppressWarnings("deprecation")
+	static long allocated() {
+		if (threads == null) {
+			return -1;
+		}
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 *
+	 * Finds the thread bean of the JVM, if it can count allocations
+	 *
+	 * @return The bean, or null
+	 *
+	 */
+	private static com.sun.management.ThreadMXBean allocationCounter() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+
+		com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+		if (!counter.isThreadAllocatedMemorySupported()) {
+			return null;
+		}
+		if (!counter.isThreadAllocatedMemoryEnabled()) {
+			counter.setThreadAllocatedMemoryEnabled(true);
+		}
+		return counter;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean e) {
+		enabled = e;
+	}
+
+	public void reset() {
+		solves.reset();
+		expanded.reset();
+		reads.reset();
+		pathRooms.reset();
+		allocated.reset();
+		graphBuilds.reset();
+		generations.reset();
+		frontier.reset();
+		solveTimes.reset();
+		graphTimes.reset();
+		generateTimes.reset();
+	}
+
+	public long getSolves() {
+		return solves.sum();
+	}
+
+	public long getRoomsExpanded() {
+		return expanded.sum();
+	}
+
+	public long getGridReads() {
+		return reads.sum();
+	}
+
+	public long getPathRooms() {
+		return pathRooms.sum();
+	}
+
+	public long getFrontierPeak() {
+		return frontier.get();
+	}
+
+	public long getAllocatedBytes() {
+		return allocated.sum();
+	}
+
+	public long getGraphBuilds() {
+		return graphBuilds.sum();
+	}
+
+	public long getGenerations() {
+		return generations.sum();
+	}
+
+	public long[] getSolveHistogram() {
+		return solveTimes.counts();
+	}
+
+	public long getSolveP50Micros() {
+		return solveTimes.percentile(0.5);
+	}
+
+	public long getSolveP99Micros() {
+		return solveTimes.percentile(0.99);
+	}
+
+	public long[] getGraphBuildHistogram() {
+		return graphTimes.counts();
+	}
+
+	public long getGraphBuildP50Micros() {
+		return graphTimes.percentile(0.5);
+	}
+
+	public long[] getGenerateHistogram() {
+		return generateTimes.counts();
+	}
+
+	public long getGenerateP50Micros() {
+		return generateTimes.percentile(0.5);
+	}
+
+	/**
+	 * This class counts durations in buckets of powers of two: bucket k holds
+	 * the durations below 2^k microseconds (and above the bucket before it),
+	 * the last bucket holds everything longer. Any thread can record into it.
+	 *
+	 * @author Dany Khalife
+	 *
+	 */
+	static class Histogram {
+		// The number of buckets, the last one is open ended (past 2^30 microseconds, about 18 minutes)
+		private static final int BUCKETS = 32;
+
+		// How many durations fell in each bucket
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		/**
+		 *
+		 * Counts a duration
+		 *
+		 * @param nanos The duration
+		 *
+		 */
+		void record(long nanos) {
+			long micros = nanos / 1000;
+			buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+		}
+
+		/**
+		 *
+		 * Getter for the buckets
+		 *
+		 * @return A copy of the count of each bucket
+		 *
+		 */
+		long[] counts() {
+			long[] c = new long[BUCKETS];
+			for (int k = 0; k < BUCKETS; ++k) {
+				c[k] = buckets.get(k);
+			}
+			return c;
+		}
+
+		/**
+		 *
+		 * Finds the bucket under which a share of the durations fall
+		 *
+		 * @param q The share, between 0 and 1
+		 * @return The upper bound of the bucket (in microseconds), or 0 if
+		 *         nothing was recorded
+		 *
+		 */
+		long percentile(double q) {
+			long[] c = counts();
+			long total = 0;
+			for (long n : c) {
+				total += n;
+			}
+			if (total == 0) {
+				return 0;
+			}
+
+			long target = Math.max(1, (long) Math.ceil(q * total));
+			long seen = 0;
+			for (int k = 0; k < BUCKETS; ++k) {
+				seen += c[k];
+				if (seen >= target) {
+					return 1L << k;
+				}
+			}
+			return 1L << (BUCKETS - 1);
+		}
+
+		/**
+		 * Empties every bucket
+		 */
+		void reset() {
+			for (int k = 0; k < BUCKETS; ++k) {
+				buckets.set(k, 0);
+			}
+		}
+	}
+}
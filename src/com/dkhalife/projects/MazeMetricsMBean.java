@@ -0,0 +1,181 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+/**
+ * The management interface of the maze metrics, as seen through JMX (jconsole,
+ * VisualVM...). The counters add up every solve and generation since the last
+ * reset, and the histograms count how many took up to 1, 2, 4, 8... microseconds
+ * (bucket k holds the durations below 2^k microseconds, the last one holds the
+ * rest).
+ *
+ * @author Dany Khalife
+ *
+ */
+public interface MazeMetricsMBean {
+	/**
+	 *
+	 * Checks if the metrics are collected
+	 *
+	 * @return True if the solves and generations are counted
+	 *
+	 */
+	boolean isEnabled();
+
+	/**
+	 *
+	 * Switches the collection on or off, it takes effect with the next solve or
+	 * generation
+	 *
+	 * @param e The new enabled value
+	 *
+	 */
+	void setEnabled(boolean e);
+
+	/**
+	 * Sets every counter and histogram back to zero
+	 */
+	void reset();
+
+	/**
+	 *
+	 * Getter for the number of searches
+	 *
+	 * @return The searches counted
+	 *
+	 */
+	long getSolves();
+
+	/**
+	 *
+	 * Getter for the rooms expanded by all the searches
+	 *
+	 * @return The rooms expanded
+	 *
+	 */
+	long getRoomsExpanded();
+
+	/**
+	 *
+	 * Getter for the paths read from the grids by all the searches (only the
+	 * searches of a Maze are watched, see MazeMetrics.solve)
+	 *
+	 * @return The grid reads
+	 *
+	 */
+	long getGridReads();
+
+	/**
+	 *
+	 * Getter for the rooms on all the paths found
+	 *
+	 * @return The rooms on the paths
+	 *
+	 */
+	long getPathRooms();
+
+	/**
+	 *
+	 * Getter for the largest frontier of any search
+	 *
+	 * @return The most rooms a frontier held at once
+	 *
+	 */
+	long getFrontierPeak();
+
+	/**
+	 *
+	 * Getter for the memory allocated by the searches and generations
+	 *
+	 * @return The bytes allocated by the threads that ran them
+	 *
+	 */
+	long getAllocatedBytes();
+
+	/**
+	 *
+	 * Getter for the number of graphs rebuilt from edited walls before a search
+	 *
+	 * @return The graphs built
+	 *
+	 */
+	long getGraphBuilds();
+
+	/**
+	 *
+	 * Getter for the number of mazes generated
+	 *
+	 * @return The generations counted
+	 *
+	 */
+	long getGenerations();
+
+	/**
+	 *
+	 * Getter for the durations of the searches
+	 *
+	 * @return The histogram of the searches
+	 *
+	 */
+	long[] getSolveHistogram();
+
+	/**
+	 *
+	 * Getter for the median duration of the searches
+	 *
+	 * @return The upper bound of the bucket holding it (in microseconds)
+	 *
+	 */
+	long getSolveP50Micros();
+
+	/**
+	 *
+	 * Getter for the 99th percentile of the durations of the searches
+	 *
+	 * @return The upper bound of the bucket holding it (in microseconds)
+	 *
+	 */
+	long getSolveP99Micros();
+
+	/**
+	 *
+	 * Getter for the durations of the graph builds
+	 *
+	 * @return The histogram of the graph builds
+	 *
+	 */
+	long[] getGraphBuildHistogram();
+
+	/**
+	 *
+	 * Getter for the median duration of the graph builds
+	 *
+	 * @return The upper bound of the bucket holding it (in microseconds)
+	 *
+	 */
+	long getGraphBuildP50Micros();
+
+	/**
+	 *
+	 * Getter for the durations of the generations
+	 *
+	 * @return The histogram of the generations
+	 *
+	 */
+	long[] getGenerateHistogram();
+
+	/**
+	 *
+	 * Getter for the median duration of the generations
+	 *
+	 * @return The upper bound of the bucket holding it (in microseconds)
+	 *
+	 */
+	long getGenerateP50Micros();
+}
@@ -0,0 +1,266 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * This class draws the path of a solved maze without going through all of its
+ * rooms on every frame. The rooms of the path are grouped by square tiles of
+ * the maze, and each tile knows the stretches of the path that go through it,
+ * so a frame only looks at the stretches inside the tiles in view.
+ *
+ * When zoomed out, several rooms share a pixel: the path is then drawn at a
+ * coarser level, where each step goes from a block of 2^k by 2^k rooms to the
+ * next one. A level is built from the one below it, the first time a frame
+ * needs it.
+ *
+ * @author Dany Khalife
+ *
+ */
+class MazePath {
+	// How many cells (rooms or blocks of rooms) a tile covers across and down
+	private static final int TILE_SHIFT = 6;
+
+	// The rooms on the path
+	private int[] path;
+
+	// The blocks of 2^k rooms the path goes through, one after the other (level 0 is the path itself), and how many blocks there are across
+	private int[][] cells;
+	private int[] across;
+
+	// For each level: where the stretches of each tile start in stretches (tile t has the ones from first[t] to first[t + 1])
+	private int[][] first;
+
+	// For each level: the stretches, as the index of their first cell and the index after their last one
+	private int[][] stretches;
+
+	// How many tiles there are across, for each level
+	private int[] tiles;
+
+	/**
+	 *
+	 * A path is created for the rooms of a solved maze
+	 *
+	 * @param p The rooms on the path
+	 * @param w The width of the maze (in rooms)
+	 * @param h The height of the maze (in rooms)
+	 *
+	 */
+	MazePath(int[] p, int w, int h) {
+		path = p;
+
+		// Halve the maze until a single block covers it
+		int count = 1;
+		for (int a = w, d = h; a > 1 || d > 1; a = (a + 1) >>> 1, d = (d + 1) >>> 1) {
+			++count;
+		}
+
+		cells = new int[count][];
+		across = new int[count];
+		first = new int[count][];
+		stretches = new int[count][];
+		tiles = new int[count];
+
+		cells[0] = p;
+		across[0] = w;
+		for (int k = 1; k < count; ++k) {
+			across[k] = (across[k - 1] + 1) >>> 1;
+		}
+	}
+
+	/**
+	 *
+	 * Checks if this draws a given path
+	 *
+	 * @param p The rooms on the path
+	 * @return True if it was created for them
+	 *
+	 */
+	boolean isFor(int[] p) {
+		return p == path;
+	}
+
+	/**
+	 *
+	 * Finds the coarsest level whose blocks still take a pixel or more
+	 *
+	 * @param res How many pixels a room takes, before shrinking
+	 * @param shrink How many rooms a pixel covers across
+	 * @return The level to draw
+	 *
+	 */
+	int level(int res, int shrink) {
+		int k = 0;
+		while (k < cells.length - 1 && (res << (k + 1)) <= shrink) {
+			++k;
+		}
+		return k;
+	}
+
+	/**
+	 *
+	 * Draws the steps of the path that can be seen. The graphics are in maze
+	 * pixels, where the room in column c starts at pixel c * wres / shrink.
+	 *
+	 * @param g Where to draw
+	 * @param visible The pixels in view
+	 * @param k The level to draw (see level)
+	 * @param wres How many pixels a room takes across, before shrinking
+	 * @param hres How many pixels a room takes down, before shrinking
+	 * @param shrink How many rooms a pixel covers across
+	 *
+	 */
+	void draw(Graphics2D g, Rectangle visible, int k, int wres, int hres, int shrink) {
+		build(k);
+
+		// The blocks in view, and the ones next to them (a step leading into the view starts there)
+		int c0 = Math.max(0, (int) ((long) visible.x * shrink / wres >> k) - 1);
+		int r0 = Math.max(0, (int) ((long) visible.y * shrink / hres >> k) - 1);
+		int c1 = (int) ((long) (visible.x + visible.width) * shrink / wres >> k) + 1;
+		int r1 = (int) ((long) (visible.y + visible.height) * shrink / hres >> k) + 1;
+
+		int rows = (first[k].length - 1) / tiles[k];
+		int t1 = Math.min(tiles[k] - 1, c1 >> TILE_SHIFT);
+		int u1 = Math.min(rows - 1, r1 >> TILE_SHIFT);
+
+		int[] seq = cells[k];
+		int[] runs = stretches[k];
+		for (int u = r0 >> TILE_SHIFT; u <= u1; ++u) {
+			for (int t = c0 >> TILE_SHIFT; t <= t1; ++t) {
+				int tile = u * tiles[k] + t;
+				for (int s = first[k][tile]; s < first[k][tile + 1]; ++s) {
+					// Each step is drawn with the stretch holding the cell it leads to
+					int x1 = x(seq[Math.max(runs[2 * s] - 1, 0)], k, wres, shrink);
+					int y1 = y(seq[Math.max(runs[2 * s] - 1, 0)], k, hres, shrink);
+					for (int i = Math.max(runs[2 * s], 1); i < runs[2 * s + 1]; ++i) {
+						int x2 = x(seq[i], k, wres, shrink);
+						int y2 = y(seq[i], k, hres, shrink);
+						if ((x2 != x1 || y2 != y1) && visible.intersectsLine(x1, y1, x2, y2)) {
+							g.drawLine(x1, y1, x2, y2);
+						}
+						x1 = x2;
+						y1 = y2;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Finds the pixel at the center of a block, across
+	 *
+	 * @param cell The block
+	 * @param k Its level
+	 * @param res How many pixels a room takes, before shrinking
+	 * @param shrink How many rooms a pixel covers
+	 * @return The x of the pixel
+	 *
+	 */
+	private int x(int cell, int k, int res, int shrink) {
+		return (int) ((((long) (cell % across[k]) << k) * res + ((long) res << k) / 2) / shrink);
+	}
+
+	/**
+	 *
+	 * Finds the pixel at the center of a block, down
+	 *
+	 * @param cell The block
+	 * @param k Its level
+	 * @param res How many pixels a room takes, before shrinking
+	 * @param shrink How many rooms a pixel covers
+	 * @return The y of the pixel
+	 *
+	 */
+	private int y(int cell, int k, int res, int shrink) {
+		return (int) ((((long) (cell / across[k]) << k) * res + ((long) res << k) / 2) / shrink);
+	}
+
+	/**
+	 *
+	 * Builds a level and its tiles, if it wasn't yet
+	 *
+	 * @param k The level
+	 *
+	 */
+	private void build(int k) {
+		if (first[k] != null) {
+			return;
+		}
+
+		// The blocks of a level are the ones of the level below, halved, without repeating the same block twice in a row
+		if (cells[k] == null) {
+			build(k - 1);
+			int[] below = cells[k - 1];
+			int[] seq = new int[below.length];
+			int length = 0;
+			for (int i = 0; i < below.length; ++i) {
+				int cell = (below[i] / across[k - 1] >>> 1) * across[k] + (below[i] % across[k - 1] >>> 1);
+				if (length == 0 || seq[length - 1] != cell) {
+					seq[length++] = cell;
+				}
+			}
+			cells[k] = Arrays.copyOf(seq, length);
+		}
+
+		// Count the stretches of each tile, then lay them out tile after tile
+		int[] seq = cells[k];
+		int down = 0;
+		for (int i = 0; i < seq.length; ++i) {
+			down = Math.max(down, seq[i] / across[k]);
+		}
+		tiles[k] = ((across[k] - 1) >> TILE_SHIFT) + 1;
+		int[] starts = new int[tiles[k] * ((down >> TILE_SHIFT) + 1) + 1];
+
+		int count = 0;
+		for (int i = 0; i < seq.length; ++i) {
+			int tile = tile(seq[i], k);
+			if (i == 0 || tile != tile(seq[i - 1], k)) {
+				++starts[tile + 1];
+				++count;
+			}
+		}
+		for (int t = 1; t < starts.length; ++t) {
+			starts[t] += starts[t - 1];
+		}
+
+		int[] runs = new int[2 * count];
+		int[] next = Arrays.copyOf(starts, starts.length - 1);
+		for (int i = 0; i < seq.length;) {
+			int tile = tile(seq[i], k);
+			int end = i + 1;
+			while (end < seq.length && tile(seq[end], k) == tile) {
+				++end;
+			}
+			int s = next[tile]++;
+			runs[2 * s] = i;
+			runs[2 * s + 1] = end;
+			i = end;
+		}
+
+		stretches[k] = runs;
+		first[k] = starts;
+	}
+
+	/**
+	 *
+	 * Finds the tile of a block
+	 *
+	 * @param cell The block
+	 * @param k Its level
+	 * @return The tile
+	 *
+	 */
+	private int tile(int cell, int k) {
+		return (cell / across[k] >> TILE_SHIFT) * tiles[k] + (cell % across[k] >> TILE_SHIFT);
+	}
+}
@@ -0,0 +1,260 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+/**
+ * This class draws mazes that are too dense for lines: when a room takes two
+ * pixels or less on screen, its walls are written straight into the pixels of
+ * an image instead of being stroked one by one.
+ *
+ * At two pixels per room, every wall gets its own pixel. At one pixel per room
+ * and below, a pixel shows how many of the walls under it are set (the darker,
+ * the denser). The densities of square blocks of 2^k rooms are kept in mip
+ * levels, each one built from the one below it, so a frame only reads one
+ * value per pixel whatever the size of the maze. An edit only updates the
+ * blocks above the wall that changed (see wallChanged).
+ *
+ * @author Dany Khalife
+ *
+ */
+class MazeRaster {
+	// The walls, and the size of the grid (in rooms)
+	private WallSet walls;
+	private int width;
+	private int height;
+
+	// The wall density (0 to 255) of the blocks of 2^k rooms, and how many blocks there are across and down (index 0 is unused)
+	private byte[][] levels;
+	private int[] across;
+	private int[] down;
+
+	/**
+	 *
+	 * A raster is created for a set of walls, and builds its levels
+	 *
+	 * @param w The walls to draw
+	 *
+	 */
+	MazeRaster(WallSet w) {
+		walls = w;
+		width = w.getWidth();
+		height = w.getHeight();
+
+		// Halve the grid until a single block covers it
+		int count = 1;
+		for (int a = width, d = height; a > 1 || d > 1; a = (a + 1) >>> 1, d = (d + 1) >>> 1) {
+			++count;
+		}
+
+		levels = new byte[count][];
+		across = new int[count];
+		down = new int[count];
+		across[0] = width;
+		down[0] = height;
+		for (int k = 1; k < count; ++k) {
+			across[k] = (across[k - 1] + 1) >>> 1;
+			down[k] = (down[k - 1] + 1) >>> 1;
+			levels[k] = new byte[across[k] * down[k]];
+		}
+
+		build();
+	}
+
+	/**
+	 *
+	 * Checks if the raster draws a given set of walls
+	 *
+	 * @param w The walls
+	 * @return True if the raster was created for them
+	 *
+	 */
+	boolean isFor(WallSet w) {
+		return w == walls;
+	}
+
+	/**
+	 * Computes every level again from the walls
+	 */
+	void build() {
+		if (levels.length == 1) {
+			return;
+		}
+
+		for (int i = 0; i < down[1]; ++i) {
+			for (int j = 0; j < across[1]; ++j) {
+				levels[1][i * across[1] + j] = block(j, i);
+			}
+		}
+		for (int k = 2; k < levels.length; ++k) {
+			for (int i = 0; i < down[k]; ++i) {
+				for (int j = 0; j < across[k]; ++j) {
+					levels[k][i * across[k] + j] = average(k, j, i);
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Updates the blocks above a wall that appeared or disappeared
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 *
+	 */
+	void wallChanged(int r1, int r2) {
+		if (levels.length == 1) {
+			return;
+		}
+
+		// The wall belongs to the room on its bottom or on its right
+		int room = Math.max(r1, r2);
+		int j = (room % width) >>> 1;
+		int i = (room / width) >>> 1;
+
+		levels[1][i * across[1] + j] = block(j, i);
+		for (int k = 2; k < levels.length; ++k) {
+			j >>>= 1;
+			i >>>= 1;
+			levels[k][i * across[k] + j] = average(k, j, i);
+		}
+	}
+
+	/**
+	 *
+	 * Draws a part of the maze into a pixel buffer
+	 *
+	 * @param pixels The pixels (RGB, one int per pixel, row after row)
+	 * @param w The width of the buffer
+	 * @param h The height of the buffer
+	 * @param x0 The maze pixel drawn at the left of the buffer
+	 * @param y0 The maze pixel drawn at the top of the buffer
+	 * @param res How many pixels a room takes (1 or 2)
+	 * @param shrink How many rooms a pixel covers across (a power of two, 1
+	 *            when res is 2)
+	 * @param background The color of the empty rooms
+	 *
+	 */
+	void draw(int[] pixels, int w, int h, int x0, int y0, int res, int shrink, int background) {
+		int k = Integer.numberOfTrailingZeros(shrink);
+		int cols = res == 2 ? width * 2 : across[k];
+		int rows = res == 2 ? height * 2 : down[k];
+		int bg = background & 0xFF;
+
+		for (int py = 0; py < h; ++py) {
+			int row = py * w;
+			int y = y0 + py;
+			for (int px = 0; px < w; ++px) {
+				int x = x0 + px;
+				if (x >= cols || y >= rows) {
+					pixels[row + px] = background;
+					continue;
+				}
+
+				int v;
+				if (res == 2) {
+					v = wall(x, y) ? 0 : bg;
+				}
+				else {
+					// The denser the walls, the darker the pixel
+					int density = k == 0 ? (count(y * width + x) * 255) >>> 1 : levels[k][y * across[k] + x] & 0xFF;
+					v = bg * (255 - density) / 255;
+				}
+				pixels[row + px] = (v << 16) | (v << 8) | v;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Checks if a pixel lies on a wall, when every room takes 2 by 2 pixels:
+	 * its corner, its top wall, its left wall and its inside
+	 *
+	 * @param x The x of the pixel in the maze
+	 * @param y The y of the pixel in the maze
+	 * @return True if the pixel should be black
+	 *
+	 */
+	private boolean wall(int x, int y) {
+		int room = (y >>> 1) * width + (x >>> 1);
+		boolean right = (x & 1) != 0;
+		boolean bottom = (y & 1) != 0;
+
+		if (right && bottom) {
+			return false;
+		}
+		if (right) {
+			return walls.hasTop(room);
+		}
+		if (bottom) {
+			return walls.hasLeft(room);
+		}
+
+		// A corner is black when one of the four walls meeting there is
+		return walls.hasTop(room) || walls.hasLeft(room) || (x > 0 && walls.hasTop(room - 1)) || (y > 0 && walls.hasLeft(room - width));
+	}
+
+	/**
+	 *
+	 * Counts the walls a room owns
+	 *
+	 * @param room The room
+	 * @return 0, 1 or 2 (its top and left walls)
+	 *
+	 */
+	private int count(int room) {
+		return (walls.hasTop(room) ? 1 : 0) + (walls.hasLeft(room) ? 1 : 0);
+	}
+
+	/**
+	 *
+	 * Computes the density of a block of 2 by 2 rooms (the ones on the border
+	 * may be smaller)
+	 *
+	 * @param j The column of the block
+	 * @param i The row of the block
+	 * @return The share of the walls of the block that are set, from 0 to 255
+	 *
+	 */
+	private byte block(int j, int i) {
+		int set = 0;
+		int rooms = 0;
+		for (int r = i << 1; r < Math.min((i << 1) + 2, height); ++r) {
+			for (int c = j << 1; c < Math.min((j << 1) + 2, width); ++c) {
+				set += count(r * width + c);
+				++rooms;
+			}
+		}
+		return (byte) (set * 255 / (rooms * 2));
+	}
+
+	/**
+	 *
+	 * Computes the density of a block from the (up to) four blocks it covers
+	 * on the level below
+	 *
+	 * @param k The level of the block
+	 * @param j The column of the block
+	 * @param i The row of the block
+	 * @return The average density of the blocks below, from 0 to 255
+	 *
+	 */
+	private byte average(int k, int j, int i) {
+		byte[] below = levels[k - 1];
+		int sum = 0;
+		int blocks = 0;
+		for (int r = i << 1; r < Math.min((i << 1) + 2, down[k - 1]); ++r) {
+			for (int c = j << 1; c < Math.min((j << 1) + 2, across[k - 1]); ++c) {
+				sum += below[r * across[k - 1] + c] & 0xFF;
+				++blocks;
+			}
+		}
+		return (byte) (sum / blocks);
+	}
+}
@@ -8,6 +8,8 @@ package com.dkhalife.projects;
  * 
  */
 
+import java.awt.GraphicsEnvironment;
+
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -29,8 +31,19 @@ public class MazeSolver {
 	 * The maze grid needs to know the size of the maze to be created. The size
 	 * of the grid is provided via 2 user inputs.
 	 * 
+	 * When arguments are given, or when there is no display, this runs a batch
+	 * job instead (see MazeBatch).
+	 * 
 	 */
 	public static void main(String[] args) {
+		// The metrics can be switched on through JMX while the program runs
+		MazeMetrics.register();
+
+		if (args.length > 0 || GraphicsEnvironment.isHeadless()) {
+			MazeBatch.main(args);
+			return;
+		}
+
 		try {
 			// Read the maze size
 			while (size < 10) {
@@ -67,8 +80,8 @@ public class MazeSolver {
 		// Next, we need a JFrame to hold the panel
 		JFrame f = new JFrame("Maze Solver");
 
-		// We don't want the window to be resizable, at least not for now
-		f.setResizable(false);
+		// The window can be resized, the panel shows as much of the maze as it fits
+		f.setResizable(true);
 
 		f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
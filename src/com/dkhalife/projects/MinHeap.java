@@ -0,0 +1,157 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * This class is the open set of the best-first solvers: a binary heap of
+ * rooms laid out in two primitive arrays. Rooms are ordered by their estimated
+ * path length, and ties are broken towards the rooms with the smallest
+ * estimate of the distance left. A room may be pushed more than once, the
+ * solvers skip the stale entries when they pop them.
+ *
+ * @author Dany Khalife
+ *
+ */
+class MinHeap {
+	// Keys are (estimated length << 32 | distance left)
+	private long[] keys = new long[16];
+	private int[] rooms = new int[16];
+	private int size = 0;
+
+	/**
+	 *
+	 * Adds a room to the heap
+	 *
+	 * @param room The room
+	 * @param f The estimated length of a path going through the room
+	 * @param h The estimated distance left
+	 *
+	 */
+	void push(int room, int f, int h) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size << 1);
+			rooms = Arrays.copyOf(rooms, size << 1);
+		}
+
+		long key = ((long) f << 32) | h;
+
+		// Sift up
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[parent] <= key) {
+				break;
+			}
+			keys[i] = keys[parent];
+			rooms[i] = rooms[parent];
+			i = parent;
+		}
+
+		keys[i] = key;
+		rooms[i] = room;
+	}
+
+	/**
+	 *
+	 * Removes the room with the smallest key from the heap
+	 *
+	 * @return The room
+	 *
+	 */
+	int pop() {
+		int top = rooms[0];
+		long key = keys[--size];
+		int room = rooms[size];
+
+		// Sift down
+		int i = 0;
+		int half = size >>> 1;
+		while (i < half) {
+			int child = (i << 1) + 1;
+			if (child + 1 < size && keys[child + 1] < keys[child]) {
+				++child;
+			}
+			if (key <= keys[child]) {
+				break;
+			}
+			keys[i] = keys[child];
+			rooms[i] = rooms[child];
+			i = child;
+		}
+
+		keys[i] = key;
+		rooms[i] = room;
+
+		return top;
+	}
+
+	/**
+	 *
+	 * Getter for the room on top of the heap
+	 *
+	 * @return The room with the smallest key, left in the heap
+	 *
+	 */
+	int peek() {
+		return rooms[0];
+	}
+
+	/**
+	 *
+	 * Getter for the estimated path length of the room on top of the heap
+	 *
+	 * @return The f value the room was pushed with
+	 *
+	 */
+	int peekLength() {
+		return (int) (keys[0] >>> 32);
+	}
+
+	/**
+	 *
+	 * Getter for the estimated distance left of the room on top of the heap
+	 *
+	 * @return The h value the room was pushed with
+	 *
+	 */
+	int peekLeft() {
+		return (int) keys[0];
+	}
+
+	/**
+	 *
+	 * Getter for the size of the heap
+	 *
+	 * @return How many entries are in the heap (stale ones included)
+	 *
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 *
+	 * Checks if there are rooms left in the heap
+	 *
+	 * @return True if the heap is empty
+	 *
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the rooms, keeping the arrays for the next search
+	 */
+	void clear() {
+		size = 0;
+	}
+}
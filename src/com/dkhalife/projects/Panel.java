@@ -12,17 +12,34 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
-import java.awt.geom.Line2D;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.BorderFactory;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 /**
  * This class represents the area where the maze will be drawn and where user
@@ -35,13 +52,31 @@ class Panel extends JPanel {
 	// Eclipse generated UID
 	private static final long serialVersionUID = 2396636661038057893L;
 
-	// Panel dimensions
+	// Maze dimensions (in pixels, at the current zoom)
 	private int pHeight;
 	private int pWidth;
 
-	// Horizontal and vertical resolutions
-	private static final int hres = 20;
-	private static final int wres = 20;
+	// Horizontal and vertical resolutions (the size of a room in pixels, they change with the zoom)
+	private int hres = 20;
+	private int wres = 20;
+
+	// How many rooms a pixel covers across when zoomed out past one pixel per room (a power of two)
+	private int shrink = 1;
+
+	// The height of the line showing the progress of a search or a generation
+	private static final int PROGRESS_HEIGHT = 20;
+
+	// How many walls a generation step examines, and how many steps can wait for the panel to carve them
+	private static final int GENERATION_BATCH = 1 << 10;
+	private static final int GENERATION_AHEAD = 64;
+
+	// The largest room size, and the one at which rooms become too small for lines and are rasterized
+	private static final int MAX_RES = 40;
+	private static final int RASTER_RES = 2;
+
+	// The part of the maze in view: the maze pixel shown at the top left corner of the panel
+	private int viewX = 0;
+	private int viewY = 0;
 
 	// The last mouse coordinates where a mouse event occured
 	private Integer mouseX = null;
@@ -63,6 +98,50 @@ class Panel extends JPanel {
 	private int firstRoom = -1;
 	private int lastRoom = -1;
 
+	// The grid and the walls in view, drawn once and then updated wall by
+	// wall, and the version, view and zoom they show
+	private BufferedImage canvas = null;
+	private long canvasVersion = -1;
+	private int canvasX = -1;
+	private int canvasY = -1;
+	private int canvasRes = -1;
+	private int canvasShrink = -1;
+
+	// The walls as pixels and wall densities, for the rasterized zoom levels,
+	// and the version of the maze they show
+	private MazeRaster raster = null;
+	private long rasterVersion = -1;
+
+	// Draws the path of the maze, only the part in view
+	private MazePath route = null;
+
+	// The searches and generations run one at a time on their own thread, so the panel stays responsive on large mazes
+	private ExecutorService background = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Maze worker");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	// The search in progress (null if there is none), the grid it reads, and when it stops
+	private SwingWorker<int[], Void> search = null;
+	private WatchedGrid searched = null;
+	private Future<?> stopped = null;
+
+	// The generation in progress (null if there is none), and how many walls it carved so far
+	private SwingWorker<Void, int[]> generation = null;
+	private int carved = 0;
+
+	// Shows how far the search or the generation in progress went, a few times per second
+	private Timer progress = new Timer(100, null);
+
+	// How many frames were painted, and how long they took (in nanoseconds)
+	private long frames = 0;
+	private long frameNanos = 0;
+	private long lastFrameNanos = 0;
+	private long maxFrameNanos = 0;
+
 	/**
 	 * 
 	 * The panel is initialized with a reference to the Maze data model
@@ -76,31 +155,60 @@ class Panel extends JPanel {
 		maze.panel = this;
 
 		// Calculate both dimensions
-		pWidth = maze.width * wres;
-		pHeight = maze.height * hres;
+		resize();
 
 		// Allow focus events
 		setFocusable(true);
 
+		// Only the line showing the progress needs painting
+		progress.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				repaint(0, 0, getWidth(), PROGRESS_HEIGHT);
+			}
+		});
+
 		// Draw a thick black border around the maze
 		setBorder(BorderFactory.createLineBorder(Color.BLACK, 2));
 
 		// Listen for keyboard events
 		addKeyListener(new KeyAdapter() {
 			public void keyPressed(KeyEvent e) {
+				// The arrows move the view by a quarter of the panel, escape stops the search or the generation in progress
+				switch (e.getKeyCode()) {
+					case KeyEvent.VK_ESCAPE:
+						cancelSolve();
+						cancelGeneration();
+						repaint();
+						return;
+					case KeyEvent.VK_LEFT:
+						moveView(viewX - getWidth() / 4, viewY);
+						return;
+					case KeyEvent.VK_RIGHT:
+						moveView(viewX + getWidth() / 4, viewY);
+						return;
+					case KeyEvent.VK_UP:
+						moveView(viewX, viewY - getHeight() / 4);
+						return;
+					case KeyEvent.VK_DOWN:
+						moveView(viewX, viewY + getHeight() / 4);
+						return;
+				}
+
 				switch (e.getKeyChar()) {
 				// C and R will reset the grid
 					case 'c':
 					case 'r':
+						cancelSolve();
+						cancelGeneration();
 						maze.reset();
 						coords = new Integer[4];
 					break;
 
-					// G will generate a random maze
+					// G will generate a random maze, carving it a few walls at a time in the background
 					case 'g':
+						cancelSolve();
 						coords = new Integer[4];
-						maze.reset();
-						maze.generate();
+						generateLater();
 					break;
 
 					// Holding s will wait for two clicks, first room and last room, when clicked by the user, the maze will be solved
@@ -114,9 +222,31 @@ class Panel extends JPanel {
 						}
 					break;
 
-					// T will toggle the solving method (DFS or BFS)
+					// T will toggle the solving method (DFS, BFS, bidirectional BFS, A*, JPS, LPA*, cached BFS or LCA)
 					case 't':
+						// The maze is solved again with the next method, in the background
+						cancelSolve();
+						boolean again = maze.isSolved() && firstRoom != -1 && lastRoom != -1;
+						maze.setSolved(false);
 						maze.toggle();
+						if (again) {
+							solveLater(firstRoom, lastRoom);
+						}
+					break;
+
+					// + and - will zoom in and out around the center of the panel
+					case '+':
+					case '=':
+						zoom(true, getWidth() / 2, getHeight() / 2);
+					break;
+					case '-':
+						zoom(false, getWidth() / 2, getHeight() / 2);
+					break;
+
+					// F will show how long the frames take to paint
+					case 'f':
+						alert(String.format("%d frames painted, last %.2f ms, average %.2f ms, max %.2f ms", frames, lastFrameNanos / 1e6,
+								frames == 0 ? 0 : frameNanos / 1e6 / frames, maxFrameNanos / 1e6));
 					break;
 				}
 
@@ -137,8 +267,16 @@ class Panel extends JPanel {
 		addMouseListener(new MouseAdapter() {
 			// Mouse down
 			public void mousePressed(MouseEvent e) {
-				// If we are not solving, then we are drawing
+				// If we are not solving, then we are drawing (unless rooms are smaller than pixels)
 				if (!solving) {
+					if (shrink > 1) {
+						return;
+					}
+
+					// The walls can't change under a search, and a generation would carve around the edits
+					cancelSolve();
+					cancelGeneration();
+
 					if (SwingUtilities.isLeftMouseButton(e)) {
 						// If we are doing a left click, then its a draw operation
 						erasing = false;
@@ -157,13 +295,17 @@ class Panel extends JPanel {
 						// When a click occurs, the maze is partially reset, meaning
 						// if it was previously solved,
 						// the solution needs to be recalculated
-						maze.setCustom(true);
 						maze.setSolved(false);
 
+						// The old path has to go away
+						if (maze.path.length > 0) {
+							repaint();
+						}
+
 						// Figure out the closest point on the grid where the user
 						// clicked
-						mouseX = snapToGrid(e.getX(), wres);
-						mouseY = snapToGrid(e.getY(), hres);
+						mouseX = snapToGrid(e.getX() + viewX, wres);
+						mouseY = snapToGrid(e.getY() + viewY, hres);
 
 						// Store the mouse coordinates
 						coords[0] = mouseX; // Start X
@@ -174,22 +316,27 @@ class Panel extends JPanel {
 											// detect if no movement occured)
 
 						// Clear the solution's path
-						maze.path.clear();
+						maze.path = new int[0];
 					}
 				}
 				else {
 					if (SwingUtilities.isLeftMouseButton(e)) {
+						// A new click supersedes the search in progress
+						if (search != null) {
+							cancelSolve();
+							repaint();
+						}
+
 						// We are waiting for the first room
 						if (firstRoom == -1) { // 
-							firstRoom = snapToRoom(e.getX(), e.getY());
+							firstRoom = snapToRoom(e.getX() + viewX, e.getY() + viewY);
 						}
 						else if (lastRoom == -1) { // We are waiting for the last room
-							lastRoom = snapToRoom(e.getX(), e.getY());
-							maze.solve(firstRoom, lastRoom);
-							repaint();
+							lastRoom = snapToRoom(e.getX() + viewX, e.getY() + viewY);
+							solveLater(firstRoom, lastRoom);
 						}
 						else {
-							firstRoom = snapToRoom(e.getX(), e.getY());
+							firstRoom = snapToRoom(e.getX() + viewX, e.getY() + viewY);
 							lastRoom = -1;
 						}
 					}
@@ -210,8 +357,8 @@ class Panel extends JPanel {
 
 				// Figure out the closest point on the grid where the user
 				// clicked
-				int x = snapToGrid(e.getX(), wres);
-				int y = snapToGrid(e.getY(), hres);
+				int x = snapToGrid(e.getX() + viewX, wres);
+				int y = snapToGrid(e.getY() + viewY, hres);
 
 				// Force a single direction (either vertical or horizontal,
 				// depending on the largest offset (dx or dy))
@@ -226,6 +373,10 @@ class Panel extends JPanel {
 					x = mouseX;
 				}
 
+				// Only the dragged line needs painting (the walls that changed are repainted
+				// on their own), unless a path is shown
+				Rectangle dirty = lineBounds(coords);
+
 				// If a movement occured
 				if (mouseX != x || mouseY != y) {
 					// Lets add the new walls one by one
@@ -245,7 +396,9 @@ class Panel extends JPanel {
 								int room2 = j + (i - 1) * maze.height;
 
 								// Add the new wall
-								maze.maze.add(new Wall(room1, room2));
+								if (maze.addWall(room1, room2)) {
+									wallChanged(room1, room2);
+								}
 
 								// Step horizontally
 								current += wres;
@@ -259,7 +412,9 @@ class Panel extends JPanel {
 								int room2 = j + (i - 1) * maze.height;
 
 								// Remove the wall (if any)
-								maze.maze.remove(new Wall(room1, room2));
+								if (maze.removeWall(room1, room2)) {
+									wallChanged(room1, room2);
+								}
 
 								// Step horizontally
 								current += wres;
@@ -282,7 +437,9 @@ class Panel extends JPanel {
 								int room2 = j - 1 + i * maze.height;
 
 								// Add the new wall
-								maze.maze.add(new Wall(room1, room2));
+								if (maze.addWall(room1, room2)) {
+									wallChanged(room1, room2);
+								}
 
 								// Step vertically
 								current += hres;
@@ -296,7 +453,9 @@ class Panel extends JPanel {
 								int room2 = j - 1 + i * maze.height;
 
 								// Remove the wall (if any)
-								maze.maze.remove(new Wall(room1, room2));
+								if (maze.removeWall(room1, room2)) {
+									wallChanged(room1, room2);
+								}
 
 								// Step vertically
 								current += hres;
@@ -312,7 +471,25 @@ class Panel extends JPanel {
 				// Reset the start coordinates
 				mouseX = mouseY = null;
 
-				repaint();
+				// An incremental solver can repair the path, in the background like any search
+				if (maze.needsRepair()) {
+					cancelSolve();
+					solveLater(maze.getFirstRoom(), maze.getLastRoom());
+				}
+
+				if (dirty == null || maze.path.length > 0) {
+					repaint();
+				}
+				else {
+					repaint(dirty);
+				}
+			}
+		});
+
+		// The wheel zooms in and out around the mouse
+		addMouseWheelListener(new MouseWheelListener() {
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				zoom(e.getWheelRotation() < 0, e.getX(), e.getY());
 			}
 		});
 
@@ -332,8 +509,8 @@ class Panel extends JPanel {
 				}
 
 				// Lets snap our current coordinates to the grid
-				int x = snapToGrid(e.getX(), wres);
-				int y = snapToGrid(e.getY(), hres);
+				int x = snapToGrid(e.getX() + viewX, wres);
+				int y = snapToGrid(e.getY() + viewY, hres);
 
 				// Find out for each direction how much we scrolled
 				int deltaX = Math.abs(x - mouseX);
@@ -350,16 +527,298 @@ class Panel extends JPanel {
 
 				// If we did move (after snapping to grid)
 				if (x != mouseX || y != mouseY) {
+					// Only the area under the old line and the new one needs painting
+					Rectangle dirty = lineBounds(coords);
+
 					// Store the current mouse coordinates
 					coords[2] = x;
 					coords[3] = y;
 
-					repaint();
+					Rectangle now = lineBounds(coords);
+					if (dirty == null) {
+						repaint();
+					}
+					else {
+						repaint(dirty.union(now));
+					}
 				}
 			}
 		});
 	}
 
+	/**
+	 * 
+	 * Solves the maze between two rooms on the search thread. The path is
+	 * only handed to the maze (and painted) once the search is over, and the
+	 * progress is shown meanwhile. The search is given the watched graph, the
+	 * same grid every time, so a solver that repairs its previous search (see
+	 * LPAStarSolver) recognizes it.
+	 * 
+	 * @param start The first room
+	 * @param end The last room
+	 * 
+	 */
+	private void solveLater(int start, int end) {
+		// The walls must stay put during the search
+		cancelGeneration();
+
+		// The rooms are checked right away, and nothing is searched if the maze is already solved
+		if (!maze.begin(start, end)) {
+			repaint();
+			return;
+		}
+
+		searched = maze.watch();
+		final Grid grid = searched;
+		search = new SwingWorker<int[], Void>() {
+			protected int[] doInBackground() {
+				return maze.search(grid);
+			}
+
+			protected void done() {
+				// A search that was superseded was already given up on
+				if (this != search) {
+					return;
+				}
+				stopSearch();
+
+				try {
+					maze.finish(get());
+				}
+				catch (InterruptedException e) {
+					maze.abandon();
+				}
+				catch (ExecutionException e) {
+					maze.abandon();
+					if (!(e.getCause() instanceof CancellationException)) {
+						alert("The search failed: " + e.getCause());
+					}
+				}
+				repaint();
+			}
+		};
+		stopped = background.submit(search);
+		progress.start();
+		repaint();
+	}
+
+	/**
+	 * Stops the search in progress, if there is one, and waits for the search
+	 * thread to let go of the maze. It only takes until the search checks its
+	 * grid again (every few thousand rooms).
+	 */
+	private void cancelSolve() {
+		if (search == null) {
+			return;
+		}
+
+		searched.cancel();
+		try {
+			stopped.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e) {
+			// The worker keeps its own outcome
+		}
+
+		stopSearch();
+		maze.abandon();
+	}
+
+	/**
+	 * Forgets the search in progress
+	 */
+	private void stopSearch() {
+		search = null;
+		searched = null;
+		stopped = null;
+		if (generation == null) {
+			progress.stop();
+		}
+		repaint(0, 0, getWidth(), PROGRESS_HEIGHT);
+	}
+
+	/**
+	 * Generates a random maze in the background. Every wall is put up right
+	 * away, and the search thread picks the walls to carve a batch at a time.
+	 * The panel carves them and repaints the rooms they opened, so the maze is
+	 * revealed as it is built. It runs ahead of the panel by a bounded number
+	 * of batches, so each tick only has a bounded amount of work.
+	 */
+	private void generateLater() {
+		cancelGeneration();
+
+		final ProgressiveGenerator steps = maze.startGeneration();
+		final Semaphore ahead = new Semaphore(GENERATION_AHEAD);
+		carved = 0;
+
+		generation = new SwingWorker<Void, int[]>() {
+			protected Void doInBackground() throws InterruptedException {
+				int[] walls = new int[GENERATION_BATCH];
+				while (!steps.isDone()) {
+					// Wait for the panel to catch up
+					ahead.acquire();
+					int count = steps.step(walls);
+					publish(Arrays.copyOf(walls, count));
+				}
+				return null;
+			}
+
+			protected void process(List<int[]> batches) {
+				// A generation that was stopped leaves the maze as it is
+				if (this != generation) {
+					return;
+				}
+
+				for (int[] walls : batches) {
+					for (int wall : walls) {
+						int r1 = wall >>> 1;
+						int r2 = (wall & 1) == 0 ? r1 - maze.width : r1 - 1;
+						if (maze.removeWall(r1, r2)) {
+							wallChanged(r1, r2);
+						}
+					}
+					carved += walls.length;
+					ahead.release();
+				}
+
+				// A perfect maze has one path less than rooms
+				if (carved == maze.width * maze.height - 1) {
+					maze.setFilled(true);
+					stopGeneration();
+				}
+			}
+
+			protected void done() {
+				if (this != generation) {
+					return;
+				}
+
+				// The last walls may still be on their way to process
+				try {
+					get();
+					if (carved == maze.width * maze.height - 1) {
+						maze.setFilled(true);
+						stopGeneration();
+					}
+				}
+				catch (InterruptedException e) {
+					stopGeneration();
+				}
+				catch (ExecutionException e) {
+					stopGeneration();
+					alert("The generation failed: " + e.getCause());
+				}
+			}
+		};
+		background.submit(generation);
+		progress.start();
+		repaint();
+	}
+
+	/**
+	 * Stops the generation in progress, if there is one. The maze keeps the
+	 * walls carved so far.
+	 */
+	private void cancelGeneration() {
+		if (generation == null) {
+			return;
+		}
+
+		// Cancelling runs done right away, it must find the generation forgotten
+		SwingWorker<Void, int[]> stopping = generation;
+		stopGeneration();
+		stopping.cancel(true);
+	}
+
+	/**
+	 * Forgets the generation in progress
+	 */
+	private void stopGeneration() {
+		generation = null;
+		if (search == null) {
+			progress.stop();
+		}
+		repaint(0, 0, getWidth(), PROGRESS_HEIGHT);
+	}
+
+	/**
+	 * 
+	 * Doubles or halves the size of the rooms, keeping the point of the maze
+	 * under a given spot of the panel in place. Past one pixel per room, a
+	 * pixel covers more and more rooms, until the whole maze fits in the
+	 * panel. A line being dragged is dropped.
+	 * 
+	 * @param in True to zoom in, false to zoom out
+	 * @param x The x of the spot, in the panel
+	 * @param y The y of the spot, in the panel
+	 * 
+	 */
+	private void zoom(boolean in, int x, int y) {
+		// Where the spot is in the maze, in rooms
+		double mx = (x + viewX) * (double) shrink / wres;
+		double my = (y + viewY) * (double) shrink / hres;
+
+		if (in) {
+			if (shrink > 1) {
+				shrink >>>= 1;
+			}
+			else if (wres < MAX_RES) {
+				wres = hres = Math.min(MAX_RES, wres * 2);
+			}
+			else {
+				return;
+			}
+		}
+		else {
+			if (wres > 1) {
+				wres = hres = wres / 2;
+			}
+			else if (pWidth > getWidth() || pHeight > getHeight()) {
+				shrink <<= 1;
+			}
+			else {
+				return;
+			}
+		}
+		resize();
+
+		// The dragged line was in pixels of the old zoom
+		coords = new Integer[4];
+		mouseX = mouseY = null;
+
+		moveView((int) Math.round(mx * wres / shrink) - x, (int) Math.round(my * hres / shrink) - y);
+		repaint();
+	}
+
+	/**
+	 * Computes the size of the maze in pixels, at the current zoom
+	 */
+	private void resize() {
+		pWidth = (int) (((long) maze.width * wres + shrink - 1) / shrink);
+		pHeight = (int) (((long) maze.height * hres + shrink - 1) / shrink);
+	}
+
+	/**
+	 * 
+	 * Moves the view, keeping it inside the maze
+	 * 
+	 * @param x The maze pixel to show at the left of the panel
+	 * @param y The maze pixel to show at the top of the panel
+	 * 
+	 */
+	private void moveView(int x, int y) {
+		x = Math.max(0, Math.min(x, pWidth - getWidth()));
+		y = Math.max(0, Math.min(y, pHeight - getHeight()));
+		if (x != viewX || y != viewY) {
+			viewX = x;
+			viewY = y;
+			repaint();
+		}
+	}
+
 	/**
 	 * 
 	 * This method allows snapping coordinates to a room in the maze
@@ -371,8 +830,8 @@ class Panel extends JPanel {
 	 * 
 	 */
 	private int snapToRoom(int x, int y) {
-		int i = x / wres;
-		int j = y / hres;
+		int i = x * shrink / wres;
+		int j = y * shrink / hres;
 
 		return i + j * maze.height;
 	}
@@ -414,71 +873,276 @@ class Panel extends JPanel {
 	 * 
 	 */
 	public Dimension getPreferredSize() {
-		return new Dimension(pWidth, pHeight);
+		// Large mazes are zoomed and panned through, there is no need for a window larger than the screen
+		return new Dimension(Math.min(pWidth, 1000), Math.min(pHeight, 800));
 	}
 
 	/**
-	 * This method actually prints the view every time a repaint is needed
+	 * This method actually prints the view every time a repaint is needed.
+	 * Only the rooms in view are painted, so the time it takes depends on the
+	 * size of the panel and not on the size of the maze. The grid and the
+	 * walls come from the canvas, which is only drawn again entirely when the
+	 * view moved, the zoom changed, or the maze changed without the panel
+	 * knowing (a reset or a new maze). Only the dragged line and the path are
+	 * painted on top.
 	 */
 	protected void paintComponent(Graphics g) {
+		long begin = System.nanoTime();
 		super.paintComponent(g);
 
-		// Lets start with a tiny, dashed grey stroke for the grid
-		((Graphics2D) g).setStroke(new BasicStroke(1, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_ROUND, 0, new float[] { 3 }, 0));
-		g.setColor(Color.GRAY);
+		// The panel may have been resized since the view was last moved
+		moveView(viewX, viewY);
 
-		// Paint the vertical lines
-		for (int i = wres; i < pWidth; i += wres) {
-			((Graphics2D) g).draw(new Line2D.Double(i, 0, i, pHeight));
-		}
-		// Paint the horizontal lines
-		for (int i = hres; i < pHeight; i += hres) {
-			((Graphics2D) g).draw(new Line2D.Double(0, i, pWidth, i));
-		}
-
-		// Now, we'll need a thick black stroke to paint the walls
-		((Graphics2D) g).setStroke(new BasicStroke(2));
-		g.setColor(Color.BLACK);
+		int w = getWidth();
+		int h = getHeight();
+		if (canvas == null || canvas.getWidth() != w || canvas.getHeight() != h || canvasVersion != maze.getVersion() || canvasX != viewX
+				|| canvasY != viewY || canvasRes != wres || canvasShrink != shrink) {
+			if (canvas == null || canvas.getWidth() != w || canvas.getHeight() != h) {
+				// The rasterized levels write the pixels of the canvas directly
+				canvas = new BufferedImage(Math.max(w, 1), Math.max(h, 1), BufferedImage.TYPE_INT_RGB);
+			}
 
-		for (Wall w : maze.maze) {
-			// Figure out if the wall blocks two consecutive rooms (diff = 1) or
-			// one on top of the other
-			int diff = w.room1 - w.room2;
-			if (diff == 1) {
-				int x1 = w.room2 % maze.width + 1;
-				int y1 = w.room2 / maze.width;
-				((Graphics2D) g).draw(new Line2D.Double(wres * x1, hres * y1, wres * x1, hres * y1 + hres));
+			if (wres <= RASTER_RES) {
+				// The rooms are too small for lines, every pixel is computed from the walls (or their densities)
+				if (raster == null || !raster.isFor(maze.maze)) {
+					raster = new MazeRaster(maze.maze);
+				}
+				else if (rasterVersion != maze.getVersion()) {
+					raster.build();
+				}
+				rasterVersion = maze.getVersion();
+				int[] pixels = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+				raster.draw(pixels, canvas.getWidth(), canvas.getHeight(), viewX, viewY, wres, shrink, getBackground().getRGB() & 0xFFFFFF);
 			}
 			else {
-				int x1 = w.room1 % maze.width;
-				int y1 = w.room1 / maze.width;
-				((Graphics2D) g).draw(new Line2D.Double(wres * x1, hres * y1, wres * x1 + wres, hres * y1));
+				Graphics2D c = canvas.createGraphics();
+				c.setColor(getBackground());
+				c.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+				c.translate(-viewX, -viewY);
+				render(c, viewX / wres, viewY / hres, Math.min(maze.width - 1, (viewX + w) / wres), Math.min(maze.height - 1, (viewY + h) / hres));
+				c.dispose();
 			}
+
+			canvasVersion = maze.getVersion();
+			canvasX = viewX;
+			canvasY = viewY;
+			canvasRes = wres;
+			canvasShrink = shrink;
 		}
 
+		// Only the part inside the clip is copied
+		g.drawImage(canvas, 0, 0, null);
+
+		// The rest is drawn in maze pixels
+		Graphics2D g2 = (Graphics2D) g.create();
+		g2.translate(-viewX, -viewY);
+		Rectangle visible = new Rectangle(viewX, viewY, w, h);
+
 		// Now we need to paint the dragged line (Black for inserting, and red
 		// for deleting)
-		g.setColor(!erasing ? Color.BLACK : Color.RED);
+		g2.setStroke(new BasicStroke(stroke()));
+		g2.setColor(!erasing ? Color.BLACK : Color.RED);
 		if (coords != null && coords[0] != coords[2] || coords[1] != coords[3]) {
-			((Graphics2D) g).draw(new Line2D.Double(coords[0], coords[1], coords[2], coords[3]));
+			g2.drawLine(coords[0], coords[1], coords[2], coords[3]);
+		}
+
+		// And finally we'll need to paint the path if the maze is solved, only
+		// the stretches of it in view (at a coarser level when zoomed out)
+		g2.setColor(Color.BLUE);
+		if (route == null || !route.isFor(maze.path)) {
+			route = new MazePath(maze.path, maze.width, maze.height);
+		}
+		route.draw(g2, visible, route.level(wres, shrink), wres, hres, shrink);
+		g2.dispose();
+
+		// Tell how far the search or the generation in progress went
+		String text = null;
+		if (search != null) {
+			text = String.format("Solving with %s: %,d rooms expanded (Esc to cancel)", maze.getSolver().getName(), searched.getExpanded());
+		}
+		else if (generation != null) {
+			text = String.format("Generating: %,d of %,d paths carved (Esc to stop)", carved, (long) maze.width * maze.height - 1);
+		}
+		if (text != null) {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, g.getFontMetrics().stringWidth(text) + 12, PROGRESS_HEIGHT);
+			g.setColor(Color.BLACK);
+			g.drawString(text, 6, PROGRESS_HEIGHT - 6);
+		}
+
+		// Keep track of the frame time
+		lastFrameNanos = System.nanoTime() - begin;
+		frameNanos += lastFrameNanos;
+		maxFrameNanos = Math.max(maxFrameNanos, lastFrameNanos);
+		++frames;
+	}
+
+	/**
+	 * 
+	 * Computes how thick the walls are at the current zoom
+	 * 
+	 * @return The width of the stroke of the walls (in pixels)
+	 * 
+	 */
+	private int stroke() {
+		return Math.max(1, wres / 10);
+	}
+
+	/**
+	 * 
+	 * Draws the grid and the walls of a block of rooms. The walls of the rooms
+	 * right after the block (on its right and at its bottom) are drawn too,
+	 * since they lie on its border.
+	 * 
+	 * @param g Where to draw
+	 * @param c0 The first column of the block
+	 * @param r0 The first row of the block
+	 * @param c1 The last column of the block
+	 * @param r1 The last row of the block
+	 * 
+	 */
+	private void render(Graphics2D g, int c0, int r0, int c1, int r1) {
+		int x0 = c0 * wres;
+		int y0 = r0 * hres;
+		int x1 = (c1 + 1) * wres;
+		int y1 = (r1 + 1) * hres;
+
+		g.setColor(getBackground());
+		g.fillRect(x0, y0, x1 - x0, y1 - y0);
+
+		// Lets start with a tiny, dashed grey stroke for the grid, with the
+		// dashes where they would be if the lines were drawn from the origin
+		// (when zoomed out, the grid would only blur the walls)
+		g.setColor(wres < 6 ? getBackground() : Color.GRAY);
+		g.setStroke(new BasicStroke(1, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_ROUND, 0, new float[] { 3 }, y0));
+		for (int i = Math.max(x0, wres); i <= x1 && i < pWidth; i += wres) {
+			g.drawLine(i, y0, i, y1);
+		}
+		g.setStroke(new BasicStroke(1, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_ROUND, 0, new float[] { 3 }, x0));
+		for (int i = Math.max(y0, hres); i <= y1 && i < pHeight; i += hres) {
+			g.drawLine(x0, i, x1, i);
+		}
+
+		// Now, we'll need a thick black stroke to paint the walls
+		g.setStroke(new BasicStroke(stroke()));
+		g.setColor(Color.BLACK);
+
+		int cEnd = Math.min(c1 + 1, maze.width - 1);
+		int rEnd = Math.min(r1 + 1, maze.height - 1);
+		for (int i = r0; i <= rEnd; ++i) {
+			for (int j = c0; j <= cEnd; ++j) {
+				// Each room owns its top wall and its left wall
+				int room = i * maze.width + j;
+				if (maze.maze.hasTop(room)) {
+					g.drawLine(wres * j, hres * i, wres * j + wres, hres * i);
+				}
+				if (maze.maze.hasLeft(room)) {
+					g.drawLine(wres * j, hres * i, wres * j, hres * i + hres);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * Draws a wall that appeared or disappeared on the canvas, only going over
+	 * the rooms around it
+	 * 
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * 
+	 */
+	private void wallChanged(int r1, int r2) {
+		// The densities only change above the wall
+		if (raster != null && rasterVersion == maze.getVersion() - 1) {
+			raster.wallChanged(r1, r2);
+			rasterVersion = maze.getVersion();
+		}
+
+		// Every edit bumps the version once, if the canvas was already behind (or shows
+		// another part of the maze, or is rasterized) it will be drawn entirely
+		if (canvas == null || canvasVersion != maze.getVersion() - 1 || canvasX != viewX || canvasY != viewY || canvasRes != wres
+				|| wres <= RASTER_RES) {
+			repaint();
+			return;
 		}
 
-		// And finally we'll need to paint the path if the maze is solved
-		g.setColor(Color.BLUE);
+		int room = Math.max(r1, r2);
+		int col = room % maze.width;
+		int row = room / maze.width;
 
-		int x1 = -1;
-		int y1 = -1;
-		for (Integer i : maze.path) {
-			int x2 = i % maze.width * hres + hres / 2;
-			int y2 = i / maze.width * wres + wres / 2;
+		// The wall is on the top or on the left of the room, the stroke goes around it
+		int m = stroke() + 1;
+		Rectangle area = Math.abs(r1 - r2) == 1 ? new Rectangle(col * wres - m, row * hres - m, 2 * m, hres + 2 * m)
+				: new Rectangle(col * wres - m, row * hres - m, wres + 2 * m, 2 * m);
 
-			if (x1 != -1)
-				((Graphics2D) g).draw(new Line2D.Double(x1, y1, x2, y2));
+		// A wall out of view changes nothing on screen
+		canvasVersion = maze.getVersion();
+		area.translate(-viewX, -viewY);
+		if (!area.intersects(0, 0, canvas.getWidth(), canvas.getHeight())) {
+			return;
+		}
+
+		Graphics2D c = canvas.createGraphics();
+		c.clip(area);
+		c.translate(-viewX, -viewY);
+		render(c, Math.max(col - 1, 0), Math.max(row - 1, 0), Math.min(col + 1, maze.width - 1), Math.min(row + 1, maze.height - 1));
+		c.dispose();
+
+		repaint(area);
+	}
 
-			x1 = x2;
-			y1 = y2;
+	/**
+	 * 
+	 * Computes the area of the panel covered by the dragged line
+	 * 
+	 * @param line The coordinates of the line in the maze (start x, start y,
+	 *            end x, end y)
+	 * @return The area, with room for the stroke, or null if there is no line
+	 * 
+	 */
+	private Rectangle lineBounds(Integer[] line) {
+		if (line == null || line[0] == null || line[1] == null || line[2] == null || line[3] == null) {
+			return null;
 		}
 
+		int m = stroke() + 1;
+		int x = Math.min(line[0], line[2]) - viewX;
+		int y = Math.min(line[1], line[3]) - viewY;
+		return new Rectangle(x - m, y - m, Math.abs(line[2] - line[0]) + 2 * m, Math.abs(line[3] - line[1]) + 2 * m);
+	}
+
+	/**
+	 * 
+	 * Getter for the frames painted so far
+	 * 
+	 * @return How many times the panel was painted
+	 * 
+	 */
+	public long getFrames() {
+		return frames;
+	}
+
+	/**
+	 * 
+	 * Getter for the frame times
+	 * 
+	 * @return The average time it took to paint the panel (in nanoseconds)
+	 * 
+	 */
+	public long getAverageFrameNanos() {
+		return frames == 0 ? 0 : frameNanos / frames;
+	}
+
+	/**
+	 * 
+	 * Getter for the frame times
+	 * 
+	 * @return The longest time it took to paint the panel (in nanoseconds)
+	 * 
+	 */
+	public long getMaxFrameNanos() {
+		return maxFrameNanos;
 	}
 
 	/**
@@ -0,0 +1,85 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This task runs Kruskal's algorithm over a range of a shuffled wall list,
+ * splitting the range in halves until it is small enough to be handled by a
+ * single thread. All the tasks share a concurrent Disjoint Set, so a wall is
+ * carved by whichever thread gets to join the two sets it separates.
+ *
+ * Walls are identified the way the WallSet stores them: the top wall of room r
+ * is 2 * r and its left wall is 2 * r + 1. Each task only writes the carved
+ * flags of its own range, so the flags need no synchronization.
+ *
+ * @author Dany Khalife
+ *
+ */
+class ParallelKruskal extends RecursiveAction {
+	// Eclipse generated UID
+	private static final long serialVersionUID = -3561417736468722114L;
+
+	// Below this many walls, a task doesn't split anymore
+	private static final int THRESHOLD = 1 << 14;
+
+	// The shuffled walls, and the flags telling which ones were carved
+	private final int[] walls;
+	private final byte[] carved;
+
+	// The connexity of the rooms, shared by all the tasks
+	private final ConcurrentDisjointSet ds;
+
+	// The width of the grid, to find the rooms a wall blocks
+	private final int width;
+
+	// The range of walls for this task
+	private final int from;
+	private final int to;
+
+	/**
+	 *
+	 * A task is created for a range of walls
+	 *
+	 * @param walls The shuffled walls
+	 * @param carved One flag per wall, set to 1 when the wall is carved
+	 * @param ds The shared connexity of the rooms
+	 * @param width The width of the grid
+	 * @param from The first wall of the range
+	 * @param to The end of the range (exclusive)
+	 *
+	 */
+	ParallelKruskal(int[] walls, byte[] carved, ConcurrentDisjointSet ds, int width, int from, int to) {
+		this.walls = walls;
+		this.carved = carved;
+		this.ds = ds;
+		this.width = width;
+		this.from = from;
+		this.to = to;
+	}
+
+	protected void compute() {
+		if (to - from > THRESHOLD) {
+			int middle = (from + to) >>> 1;
+			invokeAll(new ParallelKruskal(walls, carved, ds, width, from, middle), new ParallelKruskal(walls, carved, ds, width, middle, to));
+			return;
+		}
+
+		for (int i = from; i < to; ++i) {
+			int r1 = walls[i] >>> 1;
+			int r2 = (walls[i] & 1) == 0 ? r1 - width : r1 - 1;
+
+			// Remove the walls that block two disjoint rooms
+			if (ds.union(r1, r2)) {
+				carved[i] = 1;
+			}
+		}
+	}
+}
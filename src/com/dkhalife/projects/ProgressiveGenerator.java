@@ -0,0 +1,171 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.Random;
+
+/**
+ * This class generates a perfect maze a bounded number of walls at a time, so
+ * the generation can be spread over many small steps and shown as it goes. It
+ * runs the same algorithm as Maze.generate (Kruskal's): the walls are examined
+ * in a random order, and a wall is carved when the rooms it separates aren't
+ * connected yet.
+ *
+ * The random order is drawn as the walls are examined (a Fisher-Yates shuffle
+ * done from the front), so nothing has to be shuffled before the first step:
+ * the first walls come out after the same short time whatever the size of the
+ * maze. The generator only decides which walls to carve, carving them (see
+ * Maze.removeWall) is up to the caller, starting from a maze with every wall
+ * up (see Maze.startGeneration).
+ *
+ * Walls are handed out the way the WallSet stores them: the top wall of room r
+ * is 2 * r and its left wall is 2 * r + 1.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class ProgressiveGenerator {
+	// The size of the maze (in rooms)
+	private int width;
+	private int height;
+
+	// A random for maze generation
+	private Random generator;
+
+	// Which rooms were connected so far
+	private DisjointSet ds;
+
+	// The walls in their random order: the walls before next were examined, and
+	// a 0 means the wall at that index wasn't moved yet (others hold the wall + 1)
+	private int[] order = null;
+	private int total;
+	private int next = 0;
+
+	// How many walls were carved so far (a perfect maze has one less than rooms)
+	private int carved = 0;
+
+	// The generation is measured from the creation of the generator to its last step (see MazeMetrics.generated)
+	private GenerateEvent event = new GenerateEvent();
+	private long begin;
+	private long allocated = 0;
+
+	/**
+	 *
+	 * A generator is created for a maze with every wall up. Its memory is only
+	 * allocated by the first step, on the thread that runs the steps.
+	 *
+	 * @param w The width of the maze
+	 * @param h The height of the maze
+	 * @param random The random to shuffle the walls with
+	 *
+	 */
+	public ProgressiveGenerator(int w, int h, Random random) {
+		width = w;
+		height = h;
+		generator = random;
+		total = (w - 1) * h + w * (h - 1);
+
+		event.begin();
+		begin = System.nanoTime();
+	}
+
+	/**
+	 *
+	 * Examines the next walls, and tells which ones to carve
+	 *
+	 * @param walls Where to put the walls to carve, at most as many walls as
+	 *            it holds are examined
+	 * @return How many walls to carve were put in the array
+	 *
+	 */
+	public int step(int[] walls) {
+		long bytes = MazeMetrics.allocated();
+
+		if (order == null) {
+			ds = new DisjointSet(width * height);
+			order = new int[total];
+		}
+
+		int count = 0;
+		for (int i = 0; i < walls.length && !isDone(); ++i) {
+			// Pick one of the walls left, and move the one it replaces out of the way
+			int k = next + generator.nextInt(total - next);
+			int wall = wallAt(k);
+			order[k] = wallAt(next) + 1;
+			++next;
+
+			int r1 = wall >>> 1;
+			int r2 = (wall & 1) == 0 ? r1 - width : r1 - 1;
+
+			// If the rooms blocked by this wall are disjoint
+			if (ds.find(r1) != ds.find(r2)) {
+				ds.union(r1, r2);
+				walls[count++] = wall;
+				++carved;
+			}
+		}
+
+		// The steps may run on any thread, the memory each one allocates is added up
+		if (bytes >= 0) {
+			allocated += MazeMetrics.allocated() - bytes;
+		}
+		if (isDone() && event != null) {
+			MazeMetrics.generated(event, "Progressive Kruskal", width, height, total - carved, System.nanoTime() - begin, bytes < 0 ? -1 : allocated);
+			event = null;
+		}
+
+		return count;
+	}
+
+	/**
+	 *
+	 * Checks if the maze is complete
+	 *
+	 * @return True once every room is connected to every other one (the
+	 *         walls left are all kept)
+	 *
+	 */
+	public boolean isDone() {
+		return next == total || carved == width * height - 1;
+	}
+
+	/**
+	 *
+	 * Getter for the progress of the generation
+	 *
+	 * @return How many walls were carved so far
+	 *
+	 */
+	public int getCarved() {
+		return carved;
+	}
+
+	/**
+	 *
+	 * Finds the wall at an index of the random order
+	 *
+	 * @param k The index
+	 * @return The wall
+	 *
+	 */
+	private int wallAt(int k) {
+		if (order[k] != 0) {
+			return order[k] - 1;
+		}
+
+		// Walls that weren't moved are still in storage order: the top walls first, then the left walls
+		int tops = width * (height - 1);
+		if (k < tops) {
+			return (k + width) << 1;
+		}
+		int left = k - tops;
+		int room = left / (width - 1) * width + left % (width - 1) + 1;
+		return (room << 1) + 1;
+	}
+}
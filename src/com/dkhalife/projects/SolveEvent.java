@@ -0,0 +1,84 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * This Flight Recorder event is committed for every search of a maze (see
+ * MazeMetrics.solve). Its duration is the search alone, the time spent
+ * rebuilding the graph of an edited maze before it is kept apart.
+ *
+ * @author Dany Khalife
+ *
+ */
+@Name("com.dkhalife.projects.Solve")
+@Label("Maze Solve")
+@Category({ "Maze Solver" })
+@Description("A search for the path between two rooms of a maze")
+@StackTrace(false)
+class SolveEvent extends Event {
+	// The method used
+	@Label("Solver")
+	String solver;
+
+	// The size of the maze (in rooms)
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	// The rooms searched between (the pair the path joins for a search from several rooms, -1 if there is no path)
+	@Label("Start")
+	int start;
+
+	@Label("End")
+	int end;
+
+	// How many rooms the search started from and could end at (1 and 1 for a single pair)
+	@Label("Sources")
+	int sources;
+
+	@Label("Targets")
+	int targets;
+
+	// What the search cost
+	@Label("Rooms Expanded")
+	long expanded;
+
+	@Label("Frontier Peak")
+	@Description("The largest number of rooms the frontier held at once")
+	int frontier;
+
+	@Label("Path Length")
+	@Description("The rooms on the path, 0 if there is none")
+	int pathLength;
+
+	@Label("Grid Reads")
+	@Description("The paths read from the grid, -1 when the grid wasn't watched")
+	long reads;
+
+	@Label("Graph Build")
+	@Description("The time spent rebuilding the graph of an edited maze before the search")
+	@Timespan
+	long graphBuild;
+
+	@Label("Allocated")
+	@Description("The memory allocated by the thread during the search, -1 if unknown")
+	@DataAmount
+	long allocated;
+}
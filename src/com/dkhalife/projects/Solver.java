@@ -0,0 +1,60 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+/**
+ * A Solver finds a path between two rooms of a maze grid. Implementations
+ * are free to keep work arrays from one call to the next, so a solver should
+ * only be used by one thread at a time.
+ *
+ * @author Dany Khalife
+ *
+ */
+public interface Solver {
+
+	/**
+	 *
+	 * Finds a path between two rooms
+	 *
+	 * @param graph The connexity of the rooms
+	 * @param start The room to start from
+	 * @param end The room to reach
+	 * @return The rooms on the path, from start to end, or null if end can't
+	 *         be reached from start
+	 *
+	 */
+	int[] solve(Grid graph, int start, int end);
+
+	/**
+	 *
+	 * Getter for the work done by the last call to solve
+	 *
+	 * @return How many rooms were expanded (taken out of the frontier)
+	 *
+	 */
+	int getExpanded();
+
+	/**
+	 *
+	 * Getter for the memory needed by the last call to solve
+	 *
+	 * @return The largest number of rooms the frontier held at once
+	 *
+	 */
+	int getFrontier();
+
+	/**
+	 *
+	 * Getter for the solver's name
+	 *
+	 * @return A short name to show to the user
+	 *
+	 */
+	String getName();
+}
@@ -0,0 +1,343 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps a bounded number of fixed size tiles of a file in memory,
+ * and evicts the least recently used one when it needs room for another. Each
+ * tile is an array of 64-bit words, stored little-endian in the file one after
+ * the other.
+ *
+ * Tiles that were edited are written back when they are evicted. The whole
+ * content can also be forgotten at once (see clear), tiles are then zeroed the
+ * next time they are used instead of being read, so clearing costs nothing
+ * whatever the size of the file.
+ *
+ * The channel failures are thrown as UncheckedIOException, since tiles are
+ * read from places that can't throw IOException (a Grid for instance). A cache
+ * should only be used by one thread at a time.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class TileCache {
+	// The file, and where the first tile starts in it
+	private FileChannel channel;
+	private long offset;
+
+	// The number of tiles, and their size in words
+	private int tiles;
+	private int words;
+
+	// The resident tiles, from the least to the most recently used
+	private LinkedHashMap<Integer, long[]> resident;
+	private int capacity;
+
+	// The last tile used, looked up without going through the map
+	private int last = -1;
+	private long[] lastWords = null;
+
+	// Which tiles differ from the file
+	private boolean[] dirty;
+
+	// A tile holds data if its stamp equals the epoch, it is zeroed otherwise
+	private int[] stamps;
+	private int epoch = 0;
+
+	// The buffer used to move tiles from and to the file
+	private ByteBuffer io;
+
+	// The metrics
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	private long bytesRead = 0;
+	private long bytesWritten = 0;
+
+	/**
+	 *
+	 * A cache is created over a file cut in tiles
+	 *
+	 * @param c The file (it has to be writable if tiles are edited)
+	 * @param o Where the first tile starts in the file (in bytes)
+	 * @param t The number of tiles
+	 * @param w The size of a tile (in 64-bit words)
+	 * @param maxBytes How much memory the resident tiles can take (at least one tile is kept)
+	 *
+	 */
+	public TileCache(FileChannel c, long o, int t, int w, long maxBytes) {
+		channel = c;
+		offset = o;
+		tiles = t;
+		words = w;
+		capacity = (int) Math.max(1, Math.min(t, maxBytes / (8L * w)));
+
+		resident = new LinkedHashMap<Integer, long[]>(16, 0.75f, true);
+		dirty = new boolean[t];
+		stamps = new int[t];
+		io = ByteBuffer.allocateDirect(8 * w).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 *
+	 * Gets a tile for reading
+	 *
+	 * @param tile The tile index
+	 * @return The words of the tile, only valid until the next call
+	 *
+	 */
+	public long[] get(int tile) {
+		if (tile == last) {
+			++hits;
+			return lastWords;
+		}
+
+		long[] data = resident.get(tile);
+		if (data == null) {
+			++misses;
+			data = load(tile);
+		}
+		else {
+			++hits;
+			if (stamps[tile] != epoch) {
+				Arrays.fill(data, 0);
+				stamps[tile] = epoch;
+				dirty[tile] = true;
+			}
+		}
+
+		last = tile;
+		lastWords = data;
+		return data;
+	}
+
+	/**
+	 *
+	 * Gets a tile for writing, it will be written back when evicted
+	 *
+	 * @param tile The tile index
+	 * @return The words of the tile, only valid until the next call
+	 *
+	 */
+	public long[] edit(int tile) {
+		long[] data = get(tile);
+		dirty[tile] = true;
+		return data;
+	}
+
+	/**
+	 * Forgets the content of every tile, as if the file was filled with zeros
+	 */
+	public void clear() {
+		if (++epoch == 0) {
+			// The stamps wrapped around, only this time do we pay for the clearing
+			Arrays.fill(stamps, 0);
+			epoch = 1;
+		}
+		last = -1;
+		lastWords = null;
+	}
+
+	/**
+	 * Writes every edited tile back to the file
+	 */
+	public void flush() {
+		for (Map.Entry<Integer, long[]> e : resident.entrySet()) {
+			if (dirty[e.getKey()]) {
+				store(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Getter for the hits
+	 *
+	 * @return How many times a tile was already in memory
+	 *
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 *
+	 * Getter for the misses
+	 *
+	 * @return How many times a tile had to be brought in memory
+	 *
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 *
+	 * Getter for the evictions
+	 *
+	 * @return How many tiles were dropped to make room for others
+	 *
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 *
+	 * Getter for the reads
+	 *
+	 * @return How many bytes were read from the file
+	 *
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/**
+	 *
+	 * Getter for the writes
+	 *
+	 * @return How many bytes were written to the file
+	 *
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 *
+	 * Getter for the capacity
+	 *
+	 * @return How many tiles can be in memory at once
+	 *
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets all the metrics back to zero
+	 */
+	public void resetStats() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		bytesRead = 0;
+		bytesWritten = 0;
+	}
+
+	/**
+	 *
+	 * Brings a tile in memory, evicting the least recently used one if the
+	 * cache is full
+	 *
+	 * @param tile The tile index
+	 * @return The words of the tile
+	 *
+	 */
+	private long[] load(int tile) {
+		long[] data;
+		if (resident.size() < capacity) {
+			data = new long[words];
+		}
+		else {
+			// Reuse the array of the tile we drop
+			Iterator<Map.Entry<Integer, long[]>> it = resident.entrySet().iterator();
+			Map.Entry<Integer, long[]> eldest = it.next();
+			it.remove();
+			++evictions;
+
+			data = eldest.getValue();
+			if (dirty[eldest.getKey()]) {
+				store(eldest.getKey(), data);
+			}
+		}
+
+		if (stamps[tile] != epoch) {
+			// The file holds an older content, the tile starts from zeros and has to be written back
+			Arrays.fill(data, 0);
+			stamps[tile] = epoch;
+			dirty[tile] = true;
+		}
+		else {
+			read(tile, data);
+		}
+
+		resident.put(tile, data);
+		return data;
+	}
+
+	/**
+	 *
+	 * Reads a tile from the file, past the end of the file it is all zeros
+	 *
+	 * @param tile The tile index
+	 * @param data Where to put its words
+	 *
+	 */
+	private void read(int tile, long[] data) {
+		io.clear();
+		try {
+			long position = offset + (long) tile * io.capacity();
+			while (io.hasRemaining()) {
+				int n = channel.read(io, position + io.position());
+				if (n < 0) {
+					break;
+				}
+				bytesRead += n;
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		while (io.hasRemaining()) {
+			io.put((byte) 0);
+		}
+		io.flip();
+
+		LongBuffer view = io.asLongBuffer();
+		view.get(data);
+		dirty[tile] = false;
+	}
+
+	/**
+	 *
+	 * Writes a tile to the file
+	 *
+	 * @param tile The tile index
+	 * @param data Its words
+	 *
+	 */
+	private void store(int tile, long[] data) {
+		io.clear();
+		io.asLongBuffer().put(data);
+		try {
+			long position = offset + (long) tile * io.capacity();
+			while (io.hasRemaining()) {
+				bytesWritten += channel.write(io, position + io.position());
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		dirty[tile] = false;
+	}
+}
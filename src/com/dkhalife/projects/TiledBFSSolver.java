@@ -0,0 +1,293 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This solver performs a BFS with bounded memory, for grids too large to give
+ * every room a back-link in memory (a TiledMaze for instance). It produces a
+ * minimal path.
+ *
+ * Each room gets 4 bits in a scratch file cut in the same square tiles as the
+ * maze: a visited bit and the direction back to the room it was reached from.
+ * Only the most recently used tiles of that file stay in memory (see
+ * TileCache), the others are spilled to disk. Only the frontier itself is kept
+ * in memory, in a queue that grows with it.
+ *
+ * The scratch file is deleted when the solver is closed (or when the program
+ * ends).
+ *
+ * @author Dany Khalife
+ *
+ */
+public class TiledBFSSolver implements Solver, Closeable {
+	// The state bits of a room: visited, and the direction back (an index from 0 to 3)
+	private static final int VISITED = 4;
+
+	// How much memory the resident scratch tiles can take
+	private long cacheBytes;
+
+	// The scratch file and its resident tiles
+	private Path file;
+	private FileChannel channel;
+	private TileCache cache;
+
+	// The geometry of the scratch tiles (the one of the last grid searched)
+	private int width;
+	private int height;
+	private int tile;
+	private int across;
+
+	// The frontier, as a circular queue that grows when it's full
+	private int[] queue = new int[1 << 12];
+
+	// How many rooms were expanded by the last search
+	private int expanded = 0;
+
+	// The largest frontier of the last search
+	private int frontier = 0;
+
+	/**
+	 * A solver is created with a cache of 16MB of scratch tiles
+	 */
+	public TiledBFSSolver() {
+		this(16L << 20);
+	}
+
+	/**
+	 *
+	 * A solver is created with a bound on its memory
+	 *
+	 * @param bytes How much memory the resident scratch tiles can take
+	 *
+	 */
+	public TiledBFSSolver(long bytes) {
+		cacheBytes = bytes;
+	}
+
+	public int[] solve(Grid graph, int start, int end) {
+		expanded = 0;
+		frontier = 0;
+		prepare(graph);
+
+		// Forget the previous search
+		cache.clear();
+
+		int mask = queue.length - 1;
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		set(start, VISITED);
+
+		while (head != tail && start != end) {
+			frontier = Math.max(frontier, tail - head);
+			int room = queue[head++ & mask];
+			++expanded;
+
+			int paths = graph.getPaths(room);
+			for (int d = 0; d < 4; ++d) {
+				int dir = 1 << d;
+				if ((paths & dir) == 0) {
+					continue;
+				}
+				int p = graph.neighbor(room, dir);
+
+				if ((get(p) & VISITED) != 0) {
+					continue;
+				}
+
+				// Remember the way back from the room, as the index of the opposite direction
+				set(p, VISITED | Integer.numberOfTrailingZeros(Graph.opposite(dir)));
+
+				if (p == end) {
+					return retrace(graph, start, end);
+				}
+
+				if (tail - head == queue.length) {
+					queue = grow(queue, head, tail);
+					head = 0;
+					tail = queue.length >>> 1;
+					mask = queue.length - 1;
+				}
+				queue[tail++ & mask] = p;
+			}
+		}
+
+		return start == end ? new int[] { start } : null;
+	}
+
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public int getFrontier() {
+		return frontier;
+	}
+
+	public String getName() {
+		return "Tiled BFS";
+	}
+
+	/**
+	 *
+	 * Getter for the scratch cache, to read its metrics
+	 *
+	 * @return The cache of the scratch tiles, or null before the first search
+	 *
+	 */
+	public TileCache getCache() {
+		return cache;
+	}
+
+	/**
+	 *
+	 * Deletes the scratch file
+	 *
+	 * @throws IOException If the file couldn't be closed
+	 *
+	 */
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+			cache = null;
+		}
+	}
+
+	/**
+	 *
+	 * Creates the scratch file, or lays out its tiles again if the grid
+	 * changed
+	 *
+	 * @param graph The grid about to be searched
+	 *
+	 */
+	private void prepare(Grid graph) {
+		int t = graph instanceof TiledMaze ? ((TiledMaze) graph).getTile() : TiledMaze.DEFAULT_TILE;
+		if (cache != null && width == graph.getWidth() && height == graph.getHeight() && tile == t) {
+			return;
+		}
+
+		width = graph.getWidth();
+		height = graph.getHeight();
+		tile = t;
+		across = (width + tile - 1) / tile;
+		int down = (height + tile - 1) / tile;
+
+		try {
+			if (channel == null) {
+				file = Files.createTempFile("maze", ".visited");
+				file.toFile().deleteOnExit();
+				channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			}
+			channel.truncate(0);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		// 16 rooms per word
+		cache = new TileCache(channel, 0, across * down, tile * tile / 16, cacheBytes);
+	}
+
+	/**
+	 *
+	 * Reads the state of a room
+	 *
+	 * @param r The room
+	 * @return Its 4 state bits
+	 *
+	 */
+	private int get(int r) {
+		int row = r / width;
+		int col = r - row * width;
+		long[] words = cache.get((row / tile) * across + col / tile);
+		int o = (row % tile) * tile + col % tile;
+		return (int) (words[o >>> 4] >>> ((o & 15) << 2)) & 15;
+	}
+
+	/**
+	 *
+	 * Writes the state of a room
+	 *
+	 * @param r The room
+	 * @param state Its 4 state bits
+	 *
+	 */
+	private void set(int r, int state) {
+		int row = r / width;
+		int col = r - row * width;
+		long[] words = cache.edit((row / tile) * across + col / tile);
+		int o = (row % tile) * tile + col % tile;
+		int shift = (o & 15) << 2;
+		words[o >>> 4] = (words[o >>> 4] & ~(15L << shift)) | ((long) state << shift);
+	}
+
+	/**
+	 *
+	 * Follows the directions back from the last room to the first one
+	 *
+	 * @param graph The grid that was searched
+	 * @param start The first room
+	 * @param end The last room
+	 * @return The rooms on the path, from start to end
+	 *
+	 */
+	private int[] retrace(Grid graph, int start, int end) {
+		int[] path = new int[64];
+		int length = 0;
+
+		for (int room = end;; room = graph.neighbor(room, 1 << (get(room) & 3))) {
+			if (length == path.length) {
+				path = Arrays.copyOf(path, length << 1);
+			}
+			path[length++] = room;
+			if (room == start) {
+				break;
+			}
+		}
+
+		// The rooms were collected backwards
+		for (int i = 0, j = length - 1; i < j; ++i, --j) {
+			int swap = path[i];
+			path[i] = path[j];
+			path[j] = swap;
+		}
+
+		return Arrays.copyOf(path, length);
+	}
+
+	/**
+	 *
+	 * Doubles the capacity of a full circular queue
+	 *
+	 * @param queue The queue
+	 * @param head The index of its first room
+	 * @param tail The index after its last room
+	 * @return A queue twice as large, holding the same rooms from index 0
+	 *
+	 */
+	private static int[] grow(int[] queue, int head, int tail) {
+		int mask = queue.length - 1;
+		int[] larger = new int[queue.length << 1];
+		for (int i = head, j = 0; i != tail; ++i, ++j) {
+			larger[j] = queue[i & mask];
+		}
+		return larger;
+	}
+}
@@ -0,0 +1,366 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class solves mazes that don't fit in memory: the walls are stored on
+ * disk in square tiles of tile by tile rooms, and only the most recently used
+ * tiles are kept in memory (see TileCache). Rooms next to each other are
+ * usually in the same tile, so a search keeps hitting the few tiles around
+ * its frontier.
+ *
+ * The file is little-endian. It starts with a 32 byte header:
+ *
+ * - the magic number "MZTL" (int), the format version (int)
+ *
+ * - the width and the height of the maze, the size of the tiles (ints)
+ *
+ * - a reserved int, always 0
+ *
+ * - the seed the maze was generated with, 0 if unknown (long)
+ *
+ * The tiles follow row by row, each one made of tile * tile rooms in the
+ * layout of the WallSet: the top wall of the room at (i, j) in the tile is bit
+ * 2 * (i * tile + j), and its left wall is the next bit. The tiles on the
+ * right and bottom edges are padded.
+ *
+ * A tiled maze should only be used by one thread at a time.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class TiledMaze implements Grid {
+	// "MZTL" in ASCII
+	public static final int MAGIC = 0x4D5A544C;
+
+	// The version written by this class
+	public static final int VERSION = 1;
+
+	// The size of the header, in bytes
+	public static final int HEADER = 32;
+
+	// The default size of the tiles (a tile of 256 * 256 rooms takes 16KB)
+	public static final int DEFAULT_TILE = 256;
+
+	/**
+	 * This sink writes the rows of a maze to a tiled file as they come, a band
+	 * of tile rows at a time, so a maze generated by the EllerGenerator goes
+	 * straight to disk without ever being in memory.
+	 */
+	public static class Writer implements EllerGenerator.RowSink {
+		// The file we write to
+		private FileChannel channel;
+
+		// The size of the maze and of its tiles
+		private int width;
+		private int tile;
+		private int across;
+
+		// The tiles of the band being filled, and the band index
+		private long[][] band;
+		private int bandRow = 0;
+		private boolean pending = false;
+
+		// The buffer used to write tiles
+		private ByteBuffer io;
+
+		/**
+		 *
+		 * A writer creates (or replaces) a tiled file and writes its header
+		 *
+		 * @param path The file
+		 * @param w The width of the maze
+		 * @param h The height of the maze
+		 * @param t The size of the tiles (a multiple of 32)
+		 * @param seed The seed the maze was generated with, 0 if unknown
+		 * @throws IOException If the file can't be written
+		 *
+		 */
+		public Writer(Path path, int w, int h, int t, long seed) throws IOException {
+			if (t < 32 || t % 32 != 0) {
+				throw new IllegalArgumentException("The tile size must be a multiple of 32");
+			}
+
+			width = w;
+			tile = t;
+			across = (w + t - 1) / t;
+			band = new long[across][tile * tile / 32];
+			io = ByteBuffer.allocateDirect(tile * tile / 4).order(ByteOrder.LITTLE_ENDIAN);
+
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(w).putInt(h).putInt(t).putInt(0).putLong(seed);
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+		}
+
+		public void row(int index, long[] walls) throws IOException {
+			// Write out the band when the row starts a new one
+			if (index / tile != bandRow) {
+				flush();
+				bandRow = index / tile;
+			}
+
+			int base = (index % tile) * tile;
+			for (int j = 0; j < width; ++j) {
+				long bits = (walls[j >>> 5] >>> ((j & 31) << 1)) & 3;
+				if (bits != 0) {
+					int o = base + j % tile;
+					band[j / tile][o >>> 5] |= bits << ((o & 31) << 1);
+				}
+			}
+			pending = true;
+		}
+
+		/**
+		 *
+		 * Writes out the last band and closes the file
+		 *
+		 * @throws IOException If the file can't be written
+		 *
+		 */
+		public void close() throws IOException {
+			try {
+				flush();
+			}
+			finally {
+				channel.close();
+			}
+		}
+
+		/**
+		 *
+		 * Writes out the tiles of the band and clears them
+		 *
+		 * @throws IOException If the file can't be written
+		 *
+		 */
+		private void flush() throws IOException {
+			if (!pending) {
+				return;
+			}
+
+			for (int t = 0; t < across; ++t) {
+				io.clear();
+				io.asLongBuffer().put(band[t]);
+				long position = HEADER + ((long) bandRow * across + t) * io.capacity();
+				while (io.hasRemaining()) {
+					channel.write(io, position + io.position());
+				}
+				Arrays.fill(band[t], 0);
+			}
+			pending = false;
+		}
+	}
+
+	// The maze described by the header
+	private int width;
+	private int height;
+	private int tile;
+	private long seed;
+
+	// How many tiles there are on a row of tiles
+	private int across;
+
+	// The file and the tiles kept in memory
+	private FileChannel channel;
+	private TileCache cache;
+
+	/**
+	 *
+	 * Opens a tiled file for reading
+	 *
+	 * @param path The file
+	 * @param cacheBytes How much memory the resident tiles can take
+	 * @throws IOException If the file can't be read or isn't a tiled maze
+	 *
+	 */
+	public TiledMaze(Path path, long cacheBytes) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					break;
+				}
+			}
+			if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+				throw new IOException("Not a tiled maze file");
+			}
+			if (header.getInt(4) > VERSION) {
+				throw new IOException("Unsupported tiled maze version " + header.getInt(4));
+			}
+
+			width = header.getInt(8);
+			height = header.getInt(12);
+			tile = header.getInt(16);
+			seed = header.getLong(24);
+			if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE || tile < 32 || tile % 32 != 0) {
+				throw new IOException("Invalid tiled maze " + width + "x" + height + " with tiles of " + tile);
+			}
+		}
+		catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		across = (width + tile - 1) / tile;
+		int down = (height + tile - 1) / tile;
+		cache = new TileCache(channel, HEADER, across * down, tile * tile / 32, cacheBytes);
+	}
+
+	/**
+	 *
+	 * Writes a maze held in memory to a tiled file
+	 *
+	 * @param path The file (replaced if it exists)
+	 * @param maze The walls to write
+	 * @param tile The size of the tiles (a multiple of 32)
+	 * @param seed The seed the maze was generated with, 0 if unknown
+	 * @throws IOException If the file can't be written
+	 *
+	 */
+	public static void save(Path path, WallSet maze, int tile, long seed) throws IOException {
+		int w = maze.getWidth();
+		Writer writer = new Writer(path, w, maze.getHeight(), tile, seed);
+		try {
+			long[] walls = new long[(w + 31) / 32];
+			for (int i = 0; i < maze.getHeight(); ++i) {
+				Arrays.fill(walls, 0);
+				for (int j = 0; j < w; ++j) {
+					int r = i * w + j;
+					long bits = (maze.hasTop(r) ? 1 : 0) | (maze.hasLeft(r) ? 2 : 0);
+					walls[j >>> 5] |= bits << ((j & 31) << 1);
+				}
+				writer.row(i, walls);
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	public int getPaths(int r) {
+		int row = r / width;
+		int col = r - row * width;
+
+		// A room leads wherever its own walls and its neighbors' walls don't block it
+		int paths = 0;
+		if (row > 0 && (walls(row, col) & 1) == 0) {
+			paths |= Graph.UP;
+		}
+		if (row < height - 1 && (walls(row + 1, col) & 1) == 0) {
+			paths |= Graph.DOWN;
+		}
+		if (col > 0 && (walls(row, col) & 2) == 0) {
+			paths |= Graph.LEFT;
+		}
+		if (col < width - 1 && (walls(row, col + 1) & 2) == 0) {
+			paths |= Graph.RIGHT;
+		}
+
+		return paths;
+	}
+
+	public int neighbor(int r, int dir) {
+		switch (dir) {
+			case Graph.UP:
+				return r - width;
+			case Graph.DOWN:
+				return r + width;
+			case Graph.LEFT:
+				return r - 1;
+			default:
+				return r + 1;
+		}
+	}
+
+	public int size() {
+		return width * height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 *
+	 * Getter for the tile size
+	 *
+	 * @return The width (and height) of a tile, in rooms
+	 *
+	 */
+	public int getTile() {
+		return tile;
+	}
+
+	/**
+	 *
+	 * Getter for the seed
+	 *
+	 * @return The seed the maze was generated with, 0 if unknown
+	 *
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 *
+	 * Getter for the cache, to read its metrics
+	 *
+	 * @return The cache of the wall tiles
+	 *
+	 */
+	public TileCache getCache() {
+		return cache;
+	}
+
+	/**
+	 *
+	 * Closes the file
+	 *
+	 * @throws IOException If the file couldn't be closed
+	 *
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 *
+	 * Reads the walls of a room
+	 *
+	 * @param row The row of the room
+	 * @param col The column of the room
+	 * @return The top wall in bit 0, the left wall in bit 1
+	 *
+	 */
+	private int walls(int row, int col) {
+		long[] words = cache.get((row / tile) * across + col / tile);
+		int o = (row % tile) * tile + col % tile;
+		return (int) (words[o >>> 5] >>> ((o & 31) << 1)) & 3;
+	}
+}
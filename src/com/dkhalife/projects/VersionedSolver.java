@@ -0,0 +1,29 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+/**
+ * A VersionedSolver keeps what it learned about a maze from one solve to the
+ * next. It has to be told which version of the walls it is solving (see
+ * Maze.getVersion), so that it knows when to forget.
+ *
+ * @author Dany Khalife
+ *
+ */
+public interface VersionedSolver extends Solver {
+
+	/**
+	 *
+	 * Setter for the version of the walls
+	 *
+	 * @param v The version the next solves are about
+	 *
+	 */
+	void setVersion(long v);
+}
@@ -0,0 +1,342 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * This class stores the walls of a maze as a packed bitmap. Every room owns
+ * two bits: one for the wall on its top side and one for the wall on its left
+ * side. The bottom and right walls of a room are the top and left walls of its
+ * neighbors, so every wall of the grid maps to exactly one bit.
+ *
+ * Adding, removing and looking up a wall are all O(1), and drawing the same
+ * wall twice only sets the same bit twice.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class WallSet {
+	// The size of the grid (in rooms)
+	private int width;
+	private int height;
+
+	// Two bits per room (top wall at 2 * room, left wall at 2 * room + 1)
+	private long[] bits;
+
+	// How many walls are currently set
+	private int count = 0;
+
+	/**
+	 *
+	 * A wall set is created empty for a grid of the given size
+	 *
+	 * @param w The width of the grid
+	 * @param h The height of the grid
+	 *
+	 */
+	public WallSet(int w, int h) {
+		width = w;
+		height = h;
+		bits = new long[(int) (((long) w * h * 2 + 63) >>> 6)];
+	}
+
+	/**
+	 *
+	 * Adds the wall separating two adjacent rooms
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * @return True if the wall was not already there
+	 *
+	 */
+	public boolean add(int r1, int r2) {
+		int b = bit(r1, r2);
+		if (b < 0) {
+			return false;
+		}
+
+		long mask = 1L << b;
+		int word = b >>> 6;
+		if ((bits[word] & mask) != 0) {
+			return false;
+		}
+
+		bits[word] |= mask;
+		++count;
+		return true;
+	}
+
+	/**
+	 *
+	 * Removes the wall separating two adjacent rooms (if any)
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * @return True if a wall was removed
+	 *
+	 */
+	public boolean remove(int r1, int r2) {
+		int b = bit(r1, r2);
+		if (b < 0) {
+			return false;
+		}
+
+		long mask = 1L << b;
+		int word = b >>> 6;
+		if ((bits[word] & mask) == 0) {
+			return false;
+		}
+
+		bits[word] &= ~mask;
+		--count;
+		return true;
+	}
+
+	/**
+	 *
+	 * Checks if a wall separates two adjacent rooms
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * @return True if there is a wall between both rooms
+	 *
+	 */
+	public boolean contains(int r1, int r2) {
+		int b = bit(r1, r2);
+		return b >= 0 && (bits[b >>> 6] & (1L << b)) != 0;
+	}
+
+	/**
+	 *
+	 * Checks if a room has a wall on its top side
+	 *
+	 * @param r The room
+	 * @return True if there is a wall between the room and the one above it
+	 *
+	 */
+	public boolean hasTop(int r) {
+		int b = r << 1;
+		return (bits[b >>> 6] & (1L << b)) != 0;
+	}
+
+	/**
+	 *
+	 * Checks if a room has a wall on its left side
+	 *
+	 * @param r The room
+	 * @return True if there is a wall between the room and the one to its left
+	 *
+	 */
+	public boolean hasLeft(int r) {
+		int b = (r << 1) + 1;
+		return (bits[b >>> 6] & (1L << b)) != 0;
+	}
+
+	/**
+	 *
+	 * Finds the next wall, in storage order, starting from a given bit. Walls
+	 * are walked one 64-bit word at a time so empty regions are skipped
+	 * quickly.
+	 *
+	 * @param from The first bit to examine
+	 * @return The next set bit (room = bit / 2, left wall if the bit is odd,
+	 *         top wall otherwise), or -1 if there are no more walls
+	 *
+	 */
+	public int nextWall(int from) {
+		int word = from >>> 6;
+		if (from < 0 || word >= bits.length) {
+			return -1;
+		}
+
+		long w = bits[word] & (-1L << from);
+		while (w == 0) {
+			if (++word == bits.length) {
+				return -1;
+			}
+			w = bits[word];
+		}
+
+		return (word << 6) + Long.numberOfTrailingZeros(w);
+	}
+
+	/**
+	 * Puts up every wall between two rooms
+	 */
+	public void fill() {
+		Arrays.fill(bits, -1L);
+		trim();
+	}
+
+	/**
+	 * Removes all the walls
+	 */
+	public void clear() {
+		Arrays.fill(bits, 0L);
+		count = 0;
+	}
+
+	/**
+	 *
+	 * Replaces all the walls with a bitmap read from a channel, in the layout
+	 * written by WallStreamWriter (little-endian 64-bit words, two bits per
+	 * room)
+	 *
+	 * @param channel The channel to read from
+	 * @throws IOException If the channel failed or ended before the bitmap
+	 *
+	 */
+	public void read(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		int word = 0;
+		while (word < bits.length) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("The wall bitmap ended after " + word + " of " + bits.length + " words");
+			}
+
+			buffer.flip();
+			while (buffer.remaining() >= 8 && word < bits.length) {
+				bits[word++] = buffer.getLong();
+			}
+			buffer.compact();
+		}
+
+		trim();
+	}
+
+	/**
+	 *
+	 * Replaces all the walls with a bitmap held in a buffer (such as a mapped
+	 * file), in the same layout as read
+	 *
+	 * @param words The bitmap, read from its current position
+	 *
+	 */
+	public void read(LongBuffer words) {
+		words.get(bits);
+		trim();
+	}
+
+	/**
+	 *
+	 * Copies the walls to a buffer (such as a mapped file), in the same layout
+	 * as read
+	 *
+	 * @param words The buffer, written from its current position
+	 *
+	 */
+	public void write(LongBuffer words) {
+		words.put(bits);
+	}
+
+	/**
+	 *
+	 * Getter for the size of the bitmap
+	 *
+	 * @return How many 64-bit words the walls take
+	 *
+	 */
+	public int words() {
+		return bits.length;
+	}
+
+	/**
+	 * Drops anything that isn't an inner wall from a bitmap that was just read,
+	 * and counts the walls that are left
+	 */
+	private void trim() {
+		// Drop the padding, the top of the first row and the left of the first column
+		int used = width * height * 2;
+		if ((used & 63) != 0) {
+			bits[bits.length - 1] &= (1L << used) - 1;
+		}
+		for (int j = 0; j < width; ++j) {
+			bits[(j << 1) >>> 6] &= ~(1L << (j << 1));
+		}
+		for (int i = 0; i < height; ++i) {
+			int b = ((i * width) << 1) + 1;
+			bits[b >>> 6] &= ~(1L << b);
+		}
+
+		count = 0;
+		for (long w : bits) {
+			count += Long.bitCount(w);
+		}
+	}
+
+	/**
+	 *
+	 * Getter for the number of walls
+	 *
+	 * @return How many walls are currently set
+	 *
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 *
+	 * Getter for the grid width
+	 *
+	 * @return The width of the grid (in rooms)
+	 *
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 *
+	 * Getter for the grid height
+	 *
+	 * @return The height of the grid (in rooms)
+	 *
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 *
+	 * Finds the bit holding the wall between two rooms. The wall is always
+	 * stored on the room that is below or to the right of the other one.
+	 *
+	 * @param r1 The first room
+	 * @param r2 The second room
+	 * @return The bit index, or -1 if both rooms are not adjacent
+	 *
+	 */
+	private int bit(int r1, int r2) {
+		int lo = Math.min(r1, r2);
+		int hi = Math.max(r1, r2);
+		if (lo < 0 || hi >= width * height) {
+			return -1;
+		}
+
+		if (hi - lo == width) {
+			// One on top of the other, hi is the bottom room
+			return hi << 1;
+		}
+
+		if (hi - lo == 1 && hi % width != 0) {
+			// Side by side on the same row, hi is the right room
+			return (hi << 1) + 1;
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,137 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This sink writes the rows of a maze to a channel, back to back, as one
+ * continuous bitmap of two bits per room. The bitmap is written as
+ * little-endian 64-bit words, so room r's top wall is bit 2 * r of the stream
+ * exactly like in a WallSet, whatever the width of the rows.
+ *
+ * Rows are gathered in a buffer and written in large chunks. The stream is
+ * padded with zeros up to a whole word when it is closed.
+ *
+ * @author Dany Khalife
+ *
+ */
+public class WallStreamWriter implements EllerGenerator.RowSink {
+	// The channel we write to
+	private WritableByteChannel channel;
+
+	// The words waiting to be written
+	private ByteBuffer buffer;
+
+	// The bits that don't fill a whole word yet
+	private long pending = 0;
+	private int pendingBits = 0;
+
+	// The number of bits in a row
+	private int rowBits;
+
+	// How many bytes were written so far
+	private long written = 0;
+
+	/**
+	 *
+	 * A writer is created for a channel and a row width
+	 *
+	 * @param c The channel to write to
+	 * @param width The width of the maze (in rooms)
+	 *
+	 */
+	public WallStreamWriter(WritableByteChannel c, int width) {
+		channel = c;
+		rowBits = 2 * width;
+		buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	public void row(int index, long[] walls) throws IOException {
+		int left = rowBits;
+		for (int i = 0; left > 0; ++i) {
+			int bits = Math.min(left, 64);
+			long word = bits == 64 ? walls[i] : walls[i] & ((1L << bits) - 1);
+			left -= bits;
+
+			// Append the bits after the pending ones, and write out the word once it is full
+			pending |= word << pendingBits;
+			if (pendingBits + bits >= 64) {
+				put(pending);
+				int spill = pendingBits + bits - 64;
+				pending = spill == 0 ? 0 : word >>> (bits - spill);
+				pendingBits = spill;
+			}
+			else {
+				pendingBits += bits;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Writes out the last (padded) word and everything still in the buffer.
+	 * The channel itself is left open.
+	 *
+	 * @throws IOException If the channel failed
+	 *
+	 */
+	public void close() throws IOException {
+		if (pendingBits > 0) {
+			put(pending);
+			pending = 0;
+			pendingBits = 0;
+		}
+		drain();
+	}
+
+	/**
+	 *
+	 * Getter for the amount of data written
+	 *
+	 * @return How many bytes were written to the channel so far
+	 *
+	 */
+	public long getWritten() {
+		return written;
+	}
+
+	/**
+	 *
+	 * Adds a full word to the buffer, draining it if needed
+	 *
+	 * @param word The word
+	 * @throws IOException If the channel failed
+	 *
+	 */
+	private void put(long word) throws IOException {
+		if (buffer.remaining() < 8) {
+			drain();
+		}
+		buffer.putLong(word);
+	}
+
+	/**
+	 *
+	 * Writes the buffer to the channel
+	 *
+	 * @throws IOException If the channel failed
+	 *
+	 */
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			written += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
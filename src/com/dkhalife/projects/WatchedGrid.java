@@ -0,0 +1,130 @@
+package com.dkhalife.projects;
+
+/**
+ *
+ * @author Dany Khalife
+ * @version 1.0
+ * @since December 09, 2012
+ *
+ */
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * This grid lets another thread follow and stop a search. It passes every
+ * call to the grid it wraps, and counts the rooms whose paths were read (about
+ * one per room a solver expands). Every few thousand rooms, the count is
+ * published for the other thread (see getExpanded), and the search is stopped
+ * with a CancellationException if it was cancelled (see cancel).
+ *
+ * The same watched grid is kept as long as the grid it wraps doesn't change,
+ * so the solvers that keep state between searches of the same grid still
+ * recognize it.
+ *
+ * @author Dany Khalife
+ *
+ */
+class WatchedGrid implements Grid {
+	// How many rooms are read between two checks
+	private static final int CHECK = 1 << 12;
+
+	// The grid being searched
+	private Grid grid;
+
+	// The rooms read by the search, and the last count published
+	private long reads = 0;
+	private volatile long published = 0;
+
+	// Set by another thread to stop the search
+	private volatile boolean cancelled = false;
+
+	/**
+	 *
+	 * A watched grid is created around a grid
+	 *
+	 * @param g The grid to search
+	 *
+	 */
+	WatchedGrid(Grid g) {
+		grid = g;
+	}
+
+	public int getPaths(int r) {
+		if ((++reads & (CHECK - 1)) == 0) {
+			published = reads;
+			if (cancelled) {
+				throw new CancellationException("The search was cancelled");
+			}
+		}
+		return grid.getPaths(r);
+	}
+
+	public int neighbor(int r, int dir) {
+		return grid.neighbor(r, dir);
+	}
+
+	public int size() {
+		return grid.size();
+	}
+
+	public int getWidth() {
+		return grid.getWidth();
+	}
+
+	public int getHeight() {
+		return grid.getHeight();
+	}
+
+	/**
+	 *
+	 * Checks if this watches a given grid
+	 *
+	 * @param g The grid
+	 * @return True if the calls are passed to it
+	 *
+	 */
+	boolean watches(Grid g) {
+		return g == grid;
+	}
+
+	/**
+	 * Gets ready for a new search: the count starts over and it isn't
+	 * cancelled anymore. This must be called before the search starts.
+	 */
+	void reset() {
+		reads = 0;
+		published = 0;
+		cancelled = false;
+	}
+
+	/**
+	 * Stops the search the next time it checks, it can be called from any
+	 * thread
+	 */
+	void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 *
+	 * Getter for the progress of the search, it can be called from any thread
+	 *
+	 * @return About how many rooms were expanded so far
+	 *
+	 */
+	long getExpanded() {
+		return published;
+	}
+
+	/**
+	 *
+	 * Getter for the exact count of the rooms read, only for the thread that
+	 * runs the search (see MazeMetrics.solve)
+	 *
+	 * @return The rooms read since the last reset
+	 *
+	 */
+	long getReads() {
+		return reads;
+	}
+}